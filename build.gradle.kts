@@ -37,6 +37,35 @@ dependencies {
     implementation("org.xerial:sqlite-jdbc:3.45.3.0")
 }
 
+// Benchmarks live in src/jmh and run against a real ledger.db, so they also need the Paper API on
+// the runtime classpath. Run with ./gradlew jmh, passing JMH options through -PjmhArgs, e.g.
+// -PjmhArgs="SingleThreaded -p rows=10000,100000 -p mode=sqlite".
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations.named("jmhImplementation") {
+    extendsFrom(configurations.implementation.get(), configurations.compileOnly.get())
+}
+
+dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+}
+
+tasks.register<JavaExec>("jmh") {
+    group = "benchmark"
+    description = "Runs the MintLedger JMH benchmarks."
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+    val extraArgs = (project.findProperty("jmhArgs") as String?)?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+    args(extraArgs + listOf("-rf", "json", "-rff", layout.buildDirectory.file("reports/jmh/results.json").get().asFile.path))
+    doFirst {
+        layout.buildDirectory.dir("reports/jmh").get().asFile.mkdirs()
+    }
+}
+
 tasks.withType<JavaCompile>().configureEach {
     options.encoding = "UTF-8"
 }
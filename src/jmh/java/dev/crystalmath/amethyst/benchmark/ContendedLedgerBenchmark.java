@@ -0,0 +1,10 @@
+package dev.crystalmath.amethyst.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Eight callers at once, so writes share group commits.
+ */
+@Threads(8)
+public class ContendedLedgerBenchmark extends LedgerBenchmarks {
+}
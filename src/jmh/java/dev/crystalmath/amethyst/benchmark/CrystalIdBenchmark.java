@@ -0,0 +1,152 @@
+package dev.crystalmath.amethyst.benchmark;
+
+import dev.crystalmath.amethyst.MintLedger;
+import dev.crystalmath.amethyst.ledger.CrystalIds;
+import dev.crystalmath.amethyst.ledger.LedgerCodec;
+import dev.crystalmath.amethyst.ledger.LedgerSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Random version 4 crystal ids against time-ordered version 7 ones, minted and inserted over plain JDBC.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CrystalIdBenchmark {
+    static final int BATCH = 1000;
+
+    @Benchmark
+    public UUID randomUuid() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID timeOrderedUuid() {
+        return CrystalIds.next();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insertCrystals(InsertState state) throws SQLException {
+        state.insertBatch();
+    }
+
+    @State(Scope.Benchmark)
+    public static class InsertState {
+        private static final int SEED_BATCH = 10_000;
+
+        @Param({"random", "v7"})
+        public String ids;
+
+        @Param({"100000", "1000000"})
+        public int rows;
+
+        private Path directory;
+        private Connection connection;
+        private PreparedStatement crystal;
+        private PreparedStatement event;
+
+        @Setup(Level.Trial)
+        public void open() throws IOException, SQLException {
+            directory = Files.createTempDirectory("crystalmath-ids");
+            Logger logger = Logger.getLogger("CrystalMathBenchmark");
+            logger.setLevel(java.util.logging.Level.WARNING);
+            MintLedger ledger = new MintLedger(directory.toFile(), logger, LedgerSettings.defaults());
+            ledger.initialize();
+            ledger.close();
+
+            connection = DriverManager.getConnection("jdbc:sqlite:" + directory.resolve("ledger.db"));
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+                statement.execute("PRAGMA synchronous = NORMAL");
+            }
+            crystal = connection.prepareStatement("""
+                    INSERT INTO crystals (uuid, world, x, y, z, status, created_at, updated_at, origin_world)
+                    VALUES (?, 1, ?, 64, 0, 1, 0, 0, 1)
+                    """);
+            event = connection.prepareStatement("""
+                    INSERT INTO crystal_events (crystal_uuid, event_type, occurred_at, status, world, x, y, z, created_at)
+                    VALUES (?, 'MINTED', 0, 1, 1, ?, 64, 0, 0)
+                    """);
+
+            connection.setAutoCommit(false);
+            for (int seeded = 0; seeded < rows; seeded += SEED_BATCH) {
+                insert(Math.min(SEED_BATCH, rows - seeded));
+            }
+        }
+
+        void insertBatch() throws SQLException {
+            insert(BATCH);
+        }
+
+        private void insert(int count) throws SQLException {
+            for (int i = 0; i < count; i++) {
+                byte[] key = LedgerCodec.toBytes(ids.equals("v7") ? CrystalIds.next() : UUID.randomUUID());
+                crystal.setBytes(1, key);
+                crystal.setInt(2, i);
+                crystal.addBatch();
+                event.setBytes(1, key);
+                event.setInt(2, i);
+                event.addBatch();
+            }
+            crystal.executeBatch();
+            event.executeBatch();
+            connection.commit();
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws IOException, SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("""
+                         SELECT name, COUNT(*), SUM(pgsize), 1.0 - SUM(unused) * 1.0 / SUM(pgsize)
+                         FROM dbstat
+                         WHERE name IN ('crystals', 'idx_crystal_events_crystal')
+                         GROUP BY name
+                         """)) {
+                while (resultSet.next()) {
+                    System.out.printf("%n%s ids, %s: %d pages, %d KiB, %.1f%% full%n", ids, resultSet.getString(1),
+                            resultSet.getLong(2), resultSet.getLong(3) / 1024L, resultSet.getDouble(4) * 100.0D);
+                }
+            }
+            crystal.close();
+            event.close();
+            connection.close();
+
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.crystalmath.amethyst.benchmark;
+
+import dev.crystalmath.amethyst.MintLedger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@link MintLedger} calls gameplay code makes, measured against a seeded ledger.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public abstract class LedgerBenchmarks {
+    @Benchmark
+    public UUID recordMint(LedgerState state) {
+        return state.ledger.recordMint(LedgerState.AREA, state.nextMintLocation());
+    }
+
+    @Benchmark
+    public Optional<MintLedger.LedgerEntry> findActiveByLocation(LedgerState state) {
+        int index = state.randomSeeded();
+        return state.ledger.findActiveByLocation(LedgerState.WORLD_NAME, LedgerState.seededX(index),
+                LedgerState.seededY(), LedgerState.seededZ(index));
+    }
+
+    @Benchmark
+    public Optional<MintLedger.LedgerEntry> findByUuid(LedgerState state) {
+        return state.ledger.findByUuid(LedgerState.seededUuid(state.randomSeeded()));
+    }
+
+    @Benchmark
+    public boolean markHeldThenRedeemed(LedgerState state, FreshCrystal crystal) {
+        return state.ledger.markHeld(crystal.uuid) && state.ledger.markRedeemed(crystal.uuid);
+    }
+
+    @Benchmark
+    public MintLedger.SupplySnapshot countByStatus(LedgerState state) {
+        return state.ledger.countByStatus();
+    }
+
+    @Benchmark
+    public List<MintLedger.LedgerEntry> listEntriesByStatus(LedgerState state) {
+        return state.ledger.listEntriesByStatus(MintLedger.STATUS_HELD);
+    }
+
+    /**
+     * A crystal minted just before each call, outside the measured time.
+     */
+    @State(Scope.Thread)
+    public static class FreshCrystal {
+        UUID uuid;
+
+        @Setup(Level.Invocation)
+        public void mint(LedgerState state) {
+            uuid = state.ledger.recordMint(LedgerState.AREA, state.nextMintLocation());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package dev.crystalmath.amethyst.benchmark;
+
+import dev.crystalmath.amethyst.MintLedger;
+import dev.crystalmath.amethyst.ledger.LedgerCodec;
+import dev.crystalmath.amethyst.ledger.LedgerSettings;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * A {@link MintLedger} opened on a private copy of a seeded {@code ledger.db}.
+ */
+@State(Scope.Benchmark)
+public class LedgerState {
+    static final String WORLD_NAME = "bench";
+    static final String AREA = "bench";
+    private static final int ROW_WIDTH = 2048;
+    private static final int SEED_Y = 64;
+    private static final int SEED_BATCH = 10_000;
+    private static final Logger LOGGER = quietLogger();
+    private static final World WORLD = world(WORLD_NAME);
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int rows;
+
+    @Param({"sqlite", "memory"})
+    public String mode;
+
+    MintLedger ledger;
+    private Path directory;
+    private final AtomicInteger minted = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void open() throws IOException, SQLException {
+        File template = template(rows);
+        directory = Files.createTempDirectory("crystalmath-bench");
+        Files.copy(template.toPath(), directory.resolve("ledger.db"), StandardCopyOption.REPLACE_EXISTING);
+
+        ledger = new MintLedger(directory.toFile(), LOGGER, settings(mode));
+        ledger.initialize();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        ledger.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    Location nextMintLocation() {
+        int n = minted.incrementAndGet();
+        return new Location(WORLD, -1 - n % ROW_WIDTH, SEED_Y, n / ROW_WIDTH);
+    }
+
+    int randomSeeded() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+
+    static UUID seededUuid(int index) {
+        return UUID.nameUUIDFromBytes(("crystal-" + index).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int seededX(int index) {
+        return index % ROW_WIDTH;
+    }
+
+    static int seededY() {
+        return SEED_Y;
+    }
+
+    static int seededZ(int index) {
+        return index / ROW_WIDTH;
+    }
+
+    private static int seededStatus(int index) {
+        return switch (index % 20) {
+            case 0, 1 -> LedgerCodec.STATUS_HELD;
+            case 2 -> LedgerCodec.STATUS_LOST;
+            case 3 -> LedgerCodec.STATUS_REDEEMED;
+            default -> LedgerCodec.STATUS_ACTIVE;
+        };
+    }
+
+    private static LedgerSettings settings(String mode) {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("mode", mode);
+        return LedgerSettings.fromConfig(config);
+    }
+
+    private static synchronized File template(int rows) throws IOException, SQLException {
+        File folder = new File(System.getProperty("crystalmath.benchmark.dir", "build/jmh-ledger"), "rows-" + rows);
+        File database = new File(folder, "ledger.db");
+        if (database.exists()) {
+            return database;
+        }
+
+        Path staging = Files.createTempDirectory("crystalmath-seed");
+        seed(staging.toFile(), rows);
+        Files.createDirectories(folder.toPath());
+        Files.move(staging.resolve("ledger.db"), database.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try (Stream<Path> files = Files.walk(staging)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+        return database;
+    }
+
+    // Builds the schema through MintLedger, bulk-loads the rows over plain JDBC, then lets the
+    // ledger rebuild its supply counters from them.
+    private static void seed(File folder, int rows) throws SQLException {
+        MintLedger ledger = new MintLedger(folder, LOGGER, LedgerSettings.defaults());
+        ledger.initialize();
+        ledger.createArea(AREA, WORLD_NAME, rows, Set.of(new MintLedger.ChunkCoordinate(0, 0)));
+        ledger.close();
+
+        long now = Instant.now().getEpochSecond();
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + new File(folder, "ledger.db"))) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement dictionary = connection.prepareStatement("INSERT OR IGNORE INTO worlds (name) VALUES (?)");
+                 PreparedStatement area = connection.prepareStatement("INSERT OR IGNORE INTO area_names (name) VALUES (?)")) {
+                dictionary.setString(1, WORLD_NAME);
+                dictionary.executeUpdate();
+                area.setString(1, AREA);
+                area.executeUpdate();
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement("""
+                    INSERT INTO crystals (uuid, area, world, x, y, z, status, created_at, updated_at, origin_world)
+                    VALUES (?, (SELECT id FROM area_names WHERE name = ?), (SELECT id FROM worlds WHERE name = ?),
+                            ?, ?, ?, ?, ?, ?, (SELECT id FROM worlds WHERE name = ?))
+                    """)) {
+                for (int i = 0; i < rows; i++) {
+                    insert.setBytes(1, LedgerCodec.toBytes(seededUuid(i)));
+                    insert.setString(2, AREA);
+                    insert.setString(3, WORLD_NAME);
+                    insert.setInt(4, seededX(i));
+                    insert.setInt(5, SEED_Y);
+                    insert.setInt(6, seededZ(i));
+                    insert.setInt(7, seededStatus(i));
+                    insert.setLong(8, now);
+                    insert.setLong(9, now);
+                    insert.setString(10, WORLD_NAME);
+                    insert.addBatch();
+                    if ((i + 1) % SEED_BATCH == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+            connection.commit();
+        }
+
+        ledger = new MintLedger(folder, LOGGER, LedgerSettings.defaults());
+        ledger.initialize();
+        ledger.rebuildSupplyCounters();
+        ledger.close();
+    }
+
+    private static World world(String name) {
+        return (World) Proxy.newProxyInstance(LedgerState.class.getClassLoader(), new Class<?>[]{World.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getName", "toString" -> name;
+                    case "hashCode" -> name.hashCode();
+                    case "equals" -> proxy == args[0];
+                    default -> null;
+                });
+    }
+
+    private static Logger quietLogger() {
+        Logger logger = Logger.getLogger("CrystalMathBenchmark");
+        logger.setLevel(java.util.logging.Level.WARNING);
+        return logger;
+    }
+}
@@ -0,0 +1,10 @@
+package dev.crystalmath.amethyst.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * One caller at a time, the latency a lone command or listener sees.
+ */
+@Threads(1)
+public class SingleThreadedLedgerBenchmark extends LedgerBenchmarks {
+}
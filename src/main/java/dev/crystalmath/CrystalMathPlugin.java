@@ -6,6 +6,7 @@ import dev.crystalmath.amethyst.commands.AreaAdminCommand;
 import dev.crystalmath.amethyst.commands.ClaimAreaCommand;
 import dev.crystalmath.amethyst.commands.CrystalAuditCommand;
 import dev.crystalmath.amethyst.commands.GenerateGeodesCommand;
+import dev.crystalmath.amethyst.commands.LedgerBackupCommand;
 import dev.crystalmath.amethyst.commands.RedeemAllCommand;
 import dev.crystalmath.amethyst.commands.RedeemCommand;
 import dev.crystalmath.amethyst.commands.SpawnCrystalsCommand;
@@ -17,7 +18,9 @@ import dev.crystalmath.amethyst.listeners.GrowthListener;
 import dev.crystalmath.amethyst.listeners.OfflineCrystalListener;
 import dev.crystalmath.amethyst.gui.AreaAdminGui;
 import dev.crystalmath.amethyst.geode.GeodeGenerator;
+import dev.crystalmath.amethyst.ledger.LedgerSettings;
 import dev.crystalmath.claims.BeaconAuraManager;
+import dev.crystalmath.claims.BeaconTierListener;
 import dev.crystalmath.claims.ClaimAdminCommand;
 import dev.crystalmath.claims.ClaimManager;
 import dev.crystalmath.claims.ClaimProtectionListener;
@@ -31,9 +34,11 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.ShapedRecipe;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 
 public class CrystalMathPlugin extends JavaPlugin {
@@ -47,6 +52,11 @@ public class CrystalMathPlugin extends JavaPlugin {
     private CrystalLifecycleListener lifecycleListener;
     private GeodeGenerator geodeGenerator;
     private BeaconAuraManager beaconAuraManager;
+    private BukkitTask archiveTask;
+    private BukkitTask offlineHoldingsTask;
+    private BukkitTask backupTask;
+    private BukkitTask checkpointTask;
+    private BukkitTask supplyHistoryTask;
 
     @Override
     public void onEnable() {
@@ -66,7 +76,7 @@ public class CrystalMathPlugin extends JavaPlugin {
         areaManager = new AreaManager(this, ledger);
         geodeGenerator = new GeodeGenerator(this);
 
-        claimManager = new ClaimManager(this);
+        claimManager = new ClaimManager(this, ledger);
         claimManager.load();
         adminGui = new AdminGui(this, claimManager);
         areaAdminGui = new AreaAdminGui(this, ledger);
@@ -79,6 +89,7 @@ public class CrystalMathPlugin extends JavaPlugin {
         Bukkit.getPluginManager().registerEvents(new GrowthListener(), this);
         Bukkit.getPluginManager().registerEvents(new BeaconCraftListener(this, ledger, mintedCrystalKey, beaconRecipeKey), this);
         Bukkit.getPluginManager().registerEvents(new ClaimProtectionListener(claimManager), this);
+        Bukkit.getPluginManager().registerEvents(new BeaconTierListener(this, claimManager), this);
         Bukkit.getPluginManager().registerEvents(adminGui, this);
         Bukkit.getPluginManager().registerEvents(areaAdminGui, this);
 
@@ -90,6 +101,7 @@ public class CrystalMathPlugin extends JavaPlugin {
         registerExecutor("redeemall", new RedeemAllCommand(this, ledger, mintedCrystalKey));
         registerExecutor("crystalaudit", new CrystalAuditCommand(this, ledger, mintedCrystalKey));
         registerExecutor("areaadmin", new AreaAdminCommand(areaAdminGui));
+        registerExecutor("ledgerbackup", new LedgerBackupCommand(this, ledger));
 
         ClaimAdminCommand adminCommand = new ClaimAdminCommand(this, claimManager, adminGui);
         PluginCommand claimAdmin = getCommand("claimadmin");
@@ -100,16 +112,38 @@ public class CrystalMathPlugin extends JavaPlugin {
 
         beaconAuraManager.start();
         registerBeaconRecipe();
+        scheduleLedgerArchive();
+        scheduleOfflineHoldingsFlush();
+        scheduleLedgerBackup();
+        scheduleLedgerCheckpoint();
+        scheduleSupplyHistory();
     }
 
     @Override
     public void onDisable() {
+        if (archiveTask != null) {
+            archiveTask.cancel();
+            archiveTask = null;
+        }
+        if (backupTask != null) {
+            backupTask.cancel();
+            backupTask = null;
+        }
+        if (checkpointTask != null) {
+            checkpointTask.cancel();
+            checkpointTask = null;
+        }
+        if (supplyHistoryTask != null) {
+            supplyHistoryTask.cancel();
+            supplyHistoryTask = null;
+        }
+        if (offlineHoldingsTask != null) {
+            offlineHoldingsTask.cancel();
+            offlineHoldingsTask = null;
+        }
         if (beaconAuraManager != null) {
             beaconAuraManager.stop();
         }
-        if (claimManager != null) {
-            claimManager.save();
-        }
         if (ledger != null) {
             ledger.close();
         }
@@ -139,6 +173,78 @@ public class CrystalMathPlugin extends JavaPlugin {
         pluginCommand.setExecutor(executor);
     }
 
+    private void scheduleLedgerArchive() {
+        LedgerSettings settings = ledger.settings();
+        if (!settings.archiveEnabled()) {
+            return;
+        }
+
+        long period = settings.archiveIntervalMinutes() * 60L * 20L;
+        archiveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                ledger.archiveTerminalCrystals();
+            } catch (MintLedger.LedgerException exception) {
+                getLogger().log(Level.WARNING, "Failed to archive terminal crystals", exception);
+            }
+        }, period, period);
+    }
+
+    private void scheduleOfflineHoldingsFlush() {
+        long period = Math.max(1L, ledger.settings().offlineHoldingsFlushMillis() / 50L);
+        offlineHoldingsTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                ledger.flushOfflineHoldings().join();
+            } catch (CompletionException exception) {
+                getLogger().warning("Failed to flush offline holdings: " + exception.getCause().getMessage());
+            }
+        }, period, period);
+    }
+
+    private void scheduleLedgerBackup() {
+        int interval = ledger.settings().backupIntervalMinutes();
+        if (interval <= 0) {
+            return;
+        }
+
+        long period = interval * 60L * 20L;
+        backupTask = Bukkit.getScheduler().runTaskTimer(this, () -> ledger.backupAsync().exceptionally(error -> {
+            getLogger().warning(error.getMessage());
+            return null;
+        }), period, period);
+    }
+
+    private void scheduleLedgerCheckpoint() {
+        LedgerSettings settings = ledger.settings();
+        if (!settings.memoryMode()) {
+            return;
+        }
+
+        long period = settings.memoryCheckpointSeconds() * 20L;
+        checkpointTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                ledger.checkpoint();
+            } catch (MintLedger.LedgerException exception) {
+                getLogger().log(Level.WARNING, "Failed to checkpoint the in-memory ledger", exception);
+            }
+        }, period, period);
+    }
+
+    private void scheduleSupplyHistory() {
+        LedgerSettings settings = ledger.settings();
+        if (!settings.historyEnabled()) {
+            return;
+        }
+
+        long period = settings.historySampleSeconds() * 20L;
+        supplyHistoryTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
+            try {
+                ledger.recordSupplySample();
+            } catch (MintLedger.LedgerException exception) {
+                getLogger().log(Level.WARNING, "Failed to record supply history", exception);
+            }
+        }, period, period);
+    }
+
     private void registerBeaconRecipe() {
         removeVanillaBeacon();
         Bukkit.removeRecipe(beaconRecipeKey);
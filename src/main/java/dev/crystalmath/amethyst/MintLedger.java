@@ -1,5 +1,25 @@
 package dev.crystalmath.amethyst;
 
+import dev.crystalmath.amethyst.ledger.ActiveCrystalIndex;
+import dev.crystalmath.amethyst.ledger.CacheMetrics;
+import dev.crystalmath.amethyst.ledger.CrystalArchive;
+import dev.crystalmath.amethyst.ledger.CrystalEvent;
+import dev.crystalmath.amethyst.ledger.CrystalIds;
+import dev.crystalmath.amethyst.ledger.EventReplay;
+import dev.crystalmath.amethyst.ledger.LedgerBackup;
+import dev.crystalmath.amethyst.ledger.LedgerCache;
+import dev.crystalmath.amethyst.ledger.LatencySnapshot;
+import dev.crystalmath.amethyst.ledger.LedgerCodec;
+import dev.crystalmath.amethyst.ledger.LedgerDatabase;
+import dev.crystalmath.amethyst.ledger.LedgerDictionary;
+import dev.crystalmath.amethyst.ledger.LedgerMigrations;
+import dev.crystalmath.amethyst.ledger.LedgerSettings;
+import dev.crystalmath.amethyst.ledger.OfflineHoldingsBuffer;
+import dev.crystalmath.amethyst.ledger.SchemaMigrator;
+import dev.crystalmath.amethyst.ledger.SqlWork;
+import dev.crystalmath.amethyst.ledger.SupplyCounters;
+import dev.crystalmath.amethyst.ledger.SupplyHistory;
+import dev.crystalmath.amethyst.ledger.WriteQueueMetrics;
 import org.bukkit.Location;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -7,15 +27,27 @@ import java.io.File;
 import java.sql.*;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 public class MintLedger {
     public static final String STATUS_ACTIVE = "ACTIVE";
@@ -28,130 +60,165 @@ public class MintLedger {
     public static final String EVENT_VOID_LOSS = "VOID_LOSS";
     public static final String EVENT_RESPAWN_REPAIR = "RESPAWN_REPAIR";
     public static final String EVENT_AUDIT_FIX = "AUDIT_FIX";
-
-    private final JavaPlugin plugin;
-    private Connection connection;
+    private static final int BULK_CHUNK_SIZE = 500;
+    private static final long BACKUP_SHUTDOWN_TIMEOUT_MILLIS = 30_000L;
+
+    private final File dataFolder;
+    private final Logger logger;
+    private final Supplier<LedgerSettings> settingsSource;
+    private final Object lifecycleLock = new Object();
+    private final ActiveCrystalIndex activeIndex = new ActiveCrystalIndex();
+    private final LedgerDictionary worlds = new LedgerDictionary("worlds");
+    private final LedgerDictionary areaNames = new LedgerDictionary("area_names");
+    private final SupplyCounters supplyCounters = new SupplyCounters();
+    private final OfflineHoldingsBuffer offlineHoldings = new OfflineHoldingsBuffer();
+    private volatile LedgerCache<UUID, LedgerEntry> entryCache = new LedgerCache<>(0, 0L);
+    private volatile LedgerBackup backup;
+    private volatile LedgerDatabase database;
 
     public MintLedger(JavaPlugin plugin) {
-        this.plugin = plugin;
+        this(plugin.getDataFolder(), plugin.getLogger(),
+                () -> LedgerSettings.fromConfig(plugin.getConfig().getConfigurationSection("ledger")));
     }
 
-    public synchronized void initialize() {
-        if (connection != null) {
-            return;
+    /**
+     * Creates a ledger outside a running server, for the benchmarks.
+     */
+    public MintLedger(File dataFolder, Logger logger, LedgerSettings settings) {
+        this(dataFolder, logger, () -> settings);
+    }
+
+    private MintLedger(File dataFolder, Logger logger, Supplier<LedgerSettings> settingsSource) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.settingsSource = settingsSource;
+    }
+
+    public void initialize() {
+        synchronized (lifecycleLock) {
+            if (database != null) {
+                return;
+            }
+            openDatabase();
         }
+    }
 
+    private void openDatabase() {
         try {
             Class.forName("org.sqlite.JDBC");
         } catch (ClassNotFoundException exception) {
             throw new LedgerException("SQLite JDBC driver not found", exception);
         }
 
-        File dataFolder = plugin.getDataFolder();
         if (!dataFolder.exists() && !dataFolder.mkdirs()) {
             throw new LedgerException("Unable to create plugin data folder at " + dataFolder.getAbsolutePath());
         }
 
         File dbFile = new File(dataFolder, "ledger.db");
+        LedgerSettings settings = settingsSource.get();
+        LedgerDatabase opened = new LedgerDatabase(dbFile, settings, logger);
 
         try {
-            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
-            try (Statement statement = connection.createStatement()) {
-                statement.executeUpdate("""
-                        CREATE TABLE IF NOT EXISTS crystals (
-                            uuid TEXT PRIMARY KEY,
-                            area_id TEXT,
-                            world TEXT,
-                            x INTEGER,
-                            y INTEGER,
-                            z INTEGER,
-                            status TEXT NOT NULL,
-                            created_at INTEGER NOT NULL,
-                            updated_at INTEGER NOT NULL
-                        )
-                        """);
-                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_crystals_location ON crystals(world, x, y, z)");
-                statement.executeUpdate("UPDATE crystals SET status = 'ACTIVE' WHERE status = 'active'");
-                statement.executeUpdate("UPDATE crystals SET status = 'REDEEMED' WHERE status = 'closed'");
-                statement.executeUpdate("""
-                        CREATE TABLE IF NOT EXISTS crystal_events (
-                            id INTEGER PRIMARY KEY AUTOINCREMENT,
-                            crystal_uuid TEXT NOT NULL,
-                            event_type TEXT NOT NULL,
-                            details TEXT,
-                            occurred_at INTEGER NOT NULL,
-                            FOREIGN KEY (crystal_uuid) REFERENCES crystals(uuid) ON DELETE CASCADE
-                        )
-                        """);
-                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_crystal_events_crystal ON crystal_events(crystal_uuid)");
-                statement.executeUpdate("""
-                        CREATE TABLE IF NOT EXISTS offline_crystals (
-                            crystal_uuid TEXT PRIMARY KEY,
-                            player_uuid TEXT NOT NULL,
-                            player_name TEXT,
-                            details TEXT,
-                            recorded_at INTEGER NOT NULL,
-                            FOREIGN KEY (crystal_uuid) REFERENCES crystals(uuid) ON DELETE CASCADE
-                        )
-                        """);
-                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_offline_crystals_player ON offline_crystals(player_uuid)");
-                statement.executeUpdate("""
-                        CREATE TABLE IF NOT EXISTS areas (
-                            id TEXT PRIMARY KEY,
-                            world TEXT NOT NULL,
-                            target_crystals INTEGER NOT NULL DEFAULT 0
-                        )
-                        """);
-                statement.executeUpdate("""
-                        CREATE TABLE IF NOT EXISTS area_chunks (
-                            area_id TEXT NOT NULL,
-                            chunk_x INTEGER NOT NULL,
-                            chunk_z INTEGER NOT NULL,
-                            PRIMARY KEY (area_id, chunk_x, chunk_z),
-                            FOREIGN KEY (area_id) REFERENCES areas(id) ON DELETE CASCADE
-                        )
-                        """);
-                statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_area_chunks_area ON area_chunks(area_id)");
-            }
+            opened.open();
+            new SchemaMigrator(opened, logger).migrate(LedgerMigrations.all());
+            opened.checkpoint();
+            opened.openReaders();
+            opened.read(connection -> {
+                worlds.load(connection);
+                areaNames.load(connection);
+                supplyCounters.load(connection);
+                return null;
+            });
+            loadActiveIndex(opened);
         } catch (SQLException exception) {
+            opened.close();
             throw new LedgerException("Unable to initialize the ledger database", exception);
         }
+
+        // Memory-mode readers can see a write group before it commits, so nothing they read may be cached.
+        int entryCacheSize = settings.memoryMode() ? 0 : settings.entryCacheSize();
+        entryCache = new LedgerCache<>(entryCacheSize, settings.entryCacheExpireSeconds());
+        backup = new LedgerBackup(dbFile, new File(dataFolder, "backups"), settings, logger);
+        database = opened;
     }
 
-    public synchronized boolean areaExists(String id) {
-        ensureConnection();
+    private void loadActiveIndex(LedgerDatabase db) throws SQLException {
+        long started = System.nanoTime();
+        activeIndex.clear();
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                SELECT 1
-                FROM areas
-                WHERE id = ?
-                LIMIT 1
-                """)) {
-            statement.setString(1, id);
+        int duplicates = db.read(connection -> {
+            int displaced = 0;
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    SELECT uuid, area, world, x, y, z
+                    FROM crystals
+                    WHERE status = ? AND world IS NOT NULL AND x IS NOT NULL AND y IS NOT NULL AND z IS NOT NULL
+                    """)) {
+                statement.setInt(1, LedgerCodec.STATUS_ACTIVE);
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                return resultSet.next();
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        UUID previous = activeIndex.put(LedgerCodec.fromBytes(resultSet.getBytes("uuid")),
+                                areaName(resultSet), worldName(resultSet),
+                                resultSet.getInt("x"), resultSet.getInt("y"), resultSet.getInt("z"));
+                        if (previous != null) {
+                            displaced++;
+                        }
+                    }
+                }
             }
+            return displaced;
+        });
+
+        if (duplicates > 0) {
+            logger.warning(duplicates + " ACTIVE ledger entries share a block with another ACTIVE crystal;"
+                    + " only the last one at each block is tracked.");
+        }
+        logger.info("Indexed " + activeIndex.size() + " active crystals in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms.");
+    }
+
+    public boolean areaExists(String id) {
+        LedgerDatabase db = requireDatabase();
+
+        try {
+            return db.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT 1
+                        FROM areas
+                        WHERE id = ?
+                        LIMIT 1
+                        """)) {
+                    statement.setString(1, id);
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next();
+                    }
+                }
+            });
         } catch (SQLException exception) {
             throw new LedgerException("Unable to query existing areas", exception);
         }
     }
 
-    public synchronized void createArea(String id, String world, int targetCrystals, Set<ChunkCoordinate> chunkCoordinates) {
-        ensureConnection();
+    public void createArea(String id, String world, int targetCrystals, Set<ChunkCoordinate> chunkCoordinates) {
+        LedgerDatabase db = requireDatabase();
 
         if (chunkCoordinates == null || chunkCoordinates.isEmpty()) {
             throw new LedgerException("Cannot create an area without any chunks");
         }
 
-        boolean previousAutoCommit;
         try {
-            previousAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
+            db.write(connection -> {
+                insertArea(connection, id, world, targetCrystals, chunkCoordinates);
+                return null;
+            });
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to configure database transaction for area creation", exception);
+            throw new LedgerException("Unable to create ledger area", exception);
         }
+    }
 
+    private void insertArea(Connection connection, String id, String world, int targetCrystals,
+                            Set<ChunkCoordinate> chunkCoordinates) throws SQLException {
         try (PreparedStatement insertArea = connection.prepareStatement("""
                 INSERT INTO areas (id, world, target_crystals)
                 VALUES (?, ?, ?)
@@ -173,238 +240,766 @@ public class MintLedger {
                 }
                 insertChunk.executeBatch();
             }
+        }
+    }
+
+    public List<AreaRecord> listAreas() {
+        List<AreaRecord> results = new ArrayList<>();
+        forEachArea(results::add);
+        return results;
+    }
 
-            connection.commit();
+    public void forEachArea(Consumer<AreaRecord> action) {
+        LedgerDatabase db = requireDatabase();
+
+        try {
+            db.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT a.id, a.world, a.target_crystals, c.chunk_x, c.chunk_z
+                        FROM areas a
+                        LEFT JOIN area_chunks c ON c.area_id = a.id
+                        ORDER BY a.id
+                        """)) {
+                    statement.setFetchSize(db.settings().scanFetchSize());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        AreaRecordBuilder builder = null;
+                        while (resultSet.next()) {
+                            String id = resultSet.getString("id");
+                            if (builder == null || !builder.id.equals(id)) {
+                                if (builder != null) {
+                                    action.accept(builder.build());
+                                }
+                                builder = new AreaRecordBuilder(id, resultSet.getString("world"),
+                                        resultSet.getInt("target_crystals"));
+                            }
+
+                            int chunkX = resultSet.getInt("chunk_x");
+                            if (!resultSet.wasNull()) {
+                                builder.addChunk(new ChunkCoordinate(chunkX, resultSet.getInt("chunk_z")));
+                            }
+                        }
+                        if (builder != null) {
+                            action.accept(builder.build());
+                        }
+                    }
+                }
+                return null;
+            });
         } catch (SQLException exception) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackException) {
-                plugin.getLogger().warning("Failed to roll back area creation: " + rollbackException.getMessage());
-            }
-            throw new LedgerException("Unable to create ledger area", exception);
-        } finally {
-            try {
-                connection.setAutoCommit(previousAutoCommit);
-            } catch (SQLException exception) {
-                plugin.getLogger().warning("Failed to restore auto-commit state: " + exception.getMessage());
-            }
+            throw new LedgerException("Unable to list areas", exception);
         }
     }
 
-    public synchronized List<AreaRecord> listAreas() {
-        ensureConnection();
+    public UUID recordMint(String areaId, Location location) {
+        LedgerDatabase db = requireDatabase();
 
-        Map<String, AreaRecordBuilder> builders = new LinkedHashMap<>();
+        UUID uuid = CrystalIds.next();
+        long now = Instant.now().getEpochSecond();
+        String world = location.getWorld().getName();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
 
-        try (PreparedStatement areaStatement = connection.prepareStatement("""
-                SELECT id, world, target_crystals
-                FROM areas
-                """)) {
-            try (ResultSet resultSet = areaStatement.executeQuery()) {
-                while (resultSet.next()) {
-                    String id = resultSet.getString("id");
-                    String world = resultSet.getString("world");
-                    int targetCrystals = resultSet.getInt("target_crystals");
-                    builders.put(id, new AreaRecordBuilder(id, world, targetCrystals));
+        List<SupplyCounters.Delta> mintDelta;
+        try {
+            int worldId = worlds.resolve(db, world);
+            Integer areaKey = areaId == null ? null : areaNames.resolve(db, areaId);
+            mintDelta = List.of(new SupplyCounters.Delta(areaKey == null ? SupplyCounters.UNKNOWN : areaKey, worldId,
+                    LedgerCodec.STATUS_ACTIVE, 1));
+            db.write(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        INSERT INTO crystals (uuid, area, world, x, y, z, status, created_at, updated_at, origin_world)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """)) {
+                    statement.setBytes(1, LedgerCodec.toBytes(uuid));
+                    if (areaKey == null) {
+                        statement.setNull(2, Types.INTEGER);
+                    } else {
+                        statement.setInt(2, areaKey);
+                    }
+                    statement.setInt(3, worldId);
+                    statement.setInt(4, x);
+                    statement.setInt(5, y);
+                    statement.setInt(6, z);
+                    statement.setInt(7, LedgerCodec.STATUS_ACTIVE);
+                    statement.setLong(8, now);
+                    statement.setLong(9, now);
+                    statement.setInt(10, worldId);
+                    statement.executeUpdate();
                 }
-            }
+                appendEvents(connection, List.of(CrystalEvent.minted(uuid, now, areaKey, worldId, x, y, z)));
+                SupplyCounters.persist(connection, mintDelta);
+                return null;
+            });
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to list areas", exception);
+            throw new LedgerException("Unable to record minted crystal", exception);
+        }
+
+        supplyCounters.apply(mintDelta);
+        activeIndex.put(uuid, areaId, world, x, y, z);
+        return uuid;
+    }
+
+    public Optional<LedgerEntry> findActiveByLocation(Location location) {
+        return findActiveByLocation(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ());
+    }
+
+    /**
+     * Answers from the in-memory ACTIVE index, so it is safe to call on the main thread.
+     */
+    public Optional<LedgerEntry> findActiveByLocation(String world, int x, int y, int z) {
+        requireDatabase();
+
+        ActiveCrystalIndex.Hit hit = activeIndex.find(world, x, y, z);
+        if (hit == null) {
+            return Optional.empty();
         }
+        return Optional.of(new LedgerEntry(hit.uuid(), hit.areaId(), STATUS_ACTIVE, world, x, y, z));
+    }
+
+    public Optional<LedgerEntry> findByUuid(UUID uuid) {
+        LedgerDatabase db = requireDatabase();
+        LedgerCache<UUID, LedgerEntry> cache = entryCache;
 
-        if (builders.isEmpty()) {
-            return List.of();
+        LedgerEntry cached = cache.get(uuid);
+        if (cached != null) {
+            return Optional.of(cached);
         }
 
-        try (PreparedStatement chunkStatement = connection.prepareStatement("""
-                SELECT area_id, chunk_x, chunk_z
-                FROM area_chunks
-                WHERE area_id = ?
-                """)) {
-            for (AreaRecordBuilder builder : builders.values()) {
-                chunkStatement.setString(1, builder.id);
-                try (ResultSet resultSet = chunkStatement.executeQuery()) {
-                    while (resultSet.next()) {
-                        int chunkX = resultSet.getInt("chunk_x");
-                        int chunkZ = resultSet.getInt("chunk_z");
-                        builder.addChunk(new ChunkCoordinate(chunkX, chunkZ));
+        long generation = cache.generation();
+        Optional<LedgerEntry> loaded;
+        try {
+            loaded = db.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT uuid, area, status, world, x, y, z
+                        FROM crystals
+                        WHERE uuid = ?
+                        UNION ALL
+                        SELECT uuid, area, status, world, x, y, z
+                        FROM crystals_archive
+                        WHERE uuid = ?
+                        LIMIT 1
+                        """)) {
+                    byte[] key = LedgerCodec.toBytes(uuid);
+                    statement.setBytes(1, key);
+                    statement.setBytes(2, key);
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        if (resultSet.next()) {
+                            return Optional.of(mapRow(resultSet));
+                        }
                     }
                 }
-            }
+                return Optional.empty();
+            });
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to load area chunks", exception);
+            throw new LedgerException("Unable to query ledger by UUID", exception);
         }
 
-        List<AreaRecord> results = new ArrayList<>();
-        for (AreaRecordBuilder builder : builders.values()) {
-            results.add(builder.build());
+        loaded.ifPresent(entry -> cache.put(uuid, entry, generation));
+        return loaded;
+    }
+
+    public boolean markHeld(UUID uuid) {
+        return await(markHeldAsync(uuid));
+    }
+
+    public CompletableFuture<Boolean> markHeldAsync(UUID uuid) {
+        return updatedFlag(transitionAsync(uuid, LedgerCodec.STATUS_HELD, null, false, null, null,
+                LedgerCodec.STATUS_ACTIVE));
+    }
+
+    public boolean markLost(UUID uuid) {
+        return markLost(uuid, null);
+    }
+
+    public boolean markLost(UUID uuid, Location location) {
+        return await(markLostAsync(uuid, location));
+    }
+
+    public CompletableFuture<Boolean> markLostAsync(UUID uuid, Location location) {
+        return markLostWithEventAsync(uuid, location, null, null);
+    }
+
+    public boolean markLostWithEvent(UUID uuid, Location location, String eventType, String details) {
+        return await(markLostWithEventAsync(uuid, location, eventType, details));
+    }
+
+    public CompletableFuture<Boolean> markLostWithEventAsync(UUID uuid, Location location, String eventType, String details) {
+        return updatedFlag(transitionAsync(uuid, LedgerCodec.STATUS_LOST, capture(location), true, eventType, details,
+                LedgerCodec.STATUS_ACTIVE, LedgerCodec.STATUS_HELD));
+    }
+
+    public boolean markRedeemed(UUID uuid) {
+        return markRedeemed(uuid, EVENT_REDEEMED, null);
+    }
+
+    public boolean markRedeemed(UUID uuid, String eventType, String details) {
+        return await(markRedeemedAsync(uuid, eventType, details));
+    }
+
+    public CompletableFuture<Boolean> markRedeemedAsync(UUID uuid, String eventType, String details) {
+        return updatedFlag(redeemAsync(uuid, eventType, details));
+    }
+
+    public CompletableFuture<TransitionResult> redeemAsync(UUID uuid, String eventType, String details) {
+        return transitionAsync(uuid, LedgerCodec.STATUS_REDEEMED, null, true,
+                eventType == null ? EVENT_REDEEMED : eventType, details, LedgerCodec.STATUS_HELD);
+    }
+
+    // The status update, offline-holding cleanup and event commit together or not at all.
+    private CompletableFuture<TransitionResult> transitionAsync(UUID uuid, int newStatus, BlockLocation position,
+                                                                boolean clearOffline, String eventType, String details,
+                                                                int... allowedStatuses) {
+        List<SupplyCounters.Delta> deltas = new ArrayList<>(2);
+        return writeAsync("Unable to update ledger entry status", connection -> {
+            long now = Instant.now().getEpochSecond();
+            // Resolved here so a world seen for the first time never costs the caller a writer round trip.
+            LocationSnapshot location = position == null ? null : new LocationSnapshot(
+                    worlds.resolve(requireDatabase(), position.world()), position.x(), position.y(), position.z());
+            TransitionResult result = transition(connection, uuid, newStatus, location, now, deltas, allowedStatuses);
+            if (result.updated()) {
+                if (clearOffline) {
+                    clearOfflineHolding(connection, uuid);
+                }
+                appendEvents(connection, List.of(CrystalEvent.transition(uuid,
+                        eventType == null ? LedgerCodec.statusName(newStatus) : eventType, details, now, newStatus,
+                        location == null ? null : location.worldId(), location == null ? null : location.x(),
+                        location == null ? null : location.y(), location == null ? null : location.z())));
+                SupplyCounters.persist(connection, deltas);
+            }
+            return result;
+        }, result -> {
+            supplyCounters.apply(deltas);
+            untrackIfUpdated(uuid, result.updated());
+        });
+    }
+
+    public WriteQueueMetrics getWriteQueueMetrics() {
+        LedgerDatabase db = database;
+        return db == null ? new WriteQueueMetrics(0, 0, 0, 0L, 0L, 0L, 0.0D, 0L) : db.writeQueueMetrics();
+    }
+
+    /**
+     * Latency of every kind of ledger statement, the one with the most total time first.
+     */
+    public List<LatencySnapshot> getStatementTimings() {
+        LedgerDatabase db = database;
+        return db == null ? List.of() : db.statementTimings();
+    }
+
+    /**
+     * Hit and miss counts of the UUID lookup cache, for sizing {@code ledger.entry-cache}.
+     */
+    public CacheMetrics getEntryCacheMetrics() {
+        return entryCache.metrics();
+    }
+
+    public SupplySnapshot countByStatus() {
+        requireDatabase();
+        return toSnapshot(supplyCounters.totals());
+    }
+
+    public Map<String, SupplySnapshot> countByArea() {
+        requireDatabase();
+
+        Map<String, SupplySnapshot> result = new TreeMap<>(Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+        supplyCounters.byArea().forEach((area, counts) ->
+                result.put(area == SupplyCounters.UNKNOWN ? null : areaNames.nameOf(area), toSnapshot(counts)));
+        return result;
+    }
+
+    public Map<String, SupplySnapshot> countByWorld(String areaId) {
+        requireDatabase();
+
+        Integer area = areaNames.find(areaId);
+        if (area == null) {
+            return Map.of();
         }
 
-        return results;
+        Map<String, SupplySnapshot> result = new TreeMap<>(Comparator.nullsLast(Comparator.naturalOrder()));
+        supplyCounters.byWorld(area).forEach((world, counts) ->
+                result.put(world == SupplyCounters.UNKNOWN ? null : worlds.nameOf(world), toSnapshot(counts)));
+        return result;
     }
 
-    public synchronized UUID recordMint(String areaId, Location location) {
-        ensureConnection();
+    /**
+     * Number of area/world cells whose stored counters disagree with a recount of the crystal rows.
+     */
+    public int verifySupplyCounters() {
+        LedgerDatabase db = requireDatabase();
 
-        UUID uuid = UUID.randomUUID();
+        SqlWork<Integer> verify = connection ->
+                countMismatches(SupplyCounters.recount(connection), SupplyCounters.stored(connection));
+        try {
+            if (db.settings().memoryMode()) {
+                // Memory-mode readers see uncommitted batches, so only the writer sees a settled ledger.
+                return db.write(verify);
+            }
+            // One read transaction, so the recount and the counters see the same WAL snapshot.
+            return db.read(connection -> {
+                connection.setAutoCommit(false);
+                try {
+                    return verify.apply(connection);
+                } finally {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            });
+        } catch (SQLException exception) {
+            throw new LedgerException("Unable to verify supply counters", exception);
+        }
+    }
+
+    public void recordSupplySample() {
+        LedgerDatabase db = requireDatabase();
+        LedgerSettings settings = db.settings();
         long now = Instant.now().getEpochSecond();
+        long[] totals = supplyCounters.totals();
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                INSERT INTO crystals (uuid, area_id, world, x, y, z, status, created_at, updated_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """)) {
-            statement.setString(1, uuid.toString());
-            statement.setString(2, areaId);
-            statement.setString(3, location.getWorld().getName());
-            statement.setInt(4, location.getBlockX());
-            statement.setInt(5, location.getBlockY());
-            statement.setInt(6, location.getBlockZ());
-            statement.setString(7, STATUS_ACTIVE);
-            statement.setLong(8, now);
-            statement.setLong(9, now);
-            statement.executeUpdate();
+        try {
+            db.write(connection -> {
+                SupplyHistory.record(connection, now, totals);
+                return SupplyHistory.prune(connection, now, settings);
+            });
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to record minted crystal", exception);
+            throw new LedgerException("Unable to record a supply history sample", exception);
         }
+    }
 
-        return uuid;
+    public SupplyTrend supplyHistory(long rangeSeconds) {
+        LedgerDatabase db = requireDatabase();
+        SupplyHistory.Resolution resolution = SupplyHistory.resolutionFor(rangeSeconds, db.settings());
+        long since = Instant.now().getEpochSecond() - rangeSeconds;
+
+        try {
+            return new SupplyTrend(resolution, db.read(connection -> SupplyHistory.query(connection, resolution, since)));
+        } catch (SQLException exception) {
+            throw new LedgerException("Unable to read the supply history", exception);
+        }
     }
 
-    public synchronized Optional<LedgerEntry> findActiveByLocation(Location location) {
-        ensureConnection();
+    public <T> T read(String failureMessage, SqlWork<T> work) {
+        LedgerDatabase db = requireDatabase();
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                SELECT uuid, area_id, status, world, x, y, z
-                FROM crystals
-                WHERE status = ? AND world = ? AND x = ? AND y = ? AND z = ?
-                LIMIT 1
-                """)) {
-            statement.setString(1, STATUS_ACTIVE);
-            statement.setString(2, location.getWorld().getName());
-            statement.setInt(3, location.getBlockX());
-            statement.setInt(4, location.getBlockY());
-            statement.setInt(5, location.getBlockZ());
+        try {
+            return db.read(work);
+        } catch (SQLException exception) {
+            throw new LedgerException(failureMessage, exception);
+        }
+    }
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return Optional.of(mapRow(resultSet));
+    public <T> T write(String failureMessage, SqlWork<T> work) {
+        LedgerDatabase db = requireDatabase();
+
+        try {
+            return db.write(work);
+        } catch (SQLException exception) {
+            throw new LedgerException(failureMessage, exception);
+        }
+    }
+
+    /**
+     * Dictionary id of {@code world}. Call it inside write tasks, where a new world is added inline.
+     */
+    public int worldId(String world) {
+        try {
+            return worlds.resolve(requireDatabase(), world);
+        } catch (SQLException exception) {
+            throw new LedgerException("Unable to resolve ledger world id", exception);
+        }
+    }
+
+    public String worldName(int worldId) {
+        return worlds.nameOf(worldId);
+    }
+
+    /**
+     * In memory mode readers see uncommitted writes, so confirm a mismatch against {@code ledger.db}.
+     */
+    public List<EventReplay.Report> verifyEventHistory() {
+        LedgerDatabase db = requireDatabase();
+
+        try {
+            return db.read(connection -> {
+                List<EventReplay.Report> reports = new ArrayList<>(2);
+                for (EventReplay.Tier tier : EventReplay.Tier.values()) {
+                    reports.add(EventReplay.verify(connection, tier, EventReplay.DEFAULT_SAMPLES));
                 }
+                return reports;
+            });
+        } catch (SQLException exception) {
+            throw new LedgerException("Unable to replay the crystal event history", exception);
+        }
+    }
+
+    public SupplySnapshot rebuildSupplyCounters() {
+        Map<Long, long[]> rebuilt = await(writeAsync("Unable to rebuild supply counters", connection -> {
+            Map<Long, long[]> counts = SupplyCounters.recount(connection);
+            SupplyCounters.overwrite(connection, counts);
+            return counts;
+        }, supplyCounters::replace));
+        logger.info("Rebuilt supply counters for " + rebuilt.size() + " area/world cells.");
+        return countByStatus();
+    }
+
+    public CompletableFuture<LedgerBackup.Result> backupAsync() {
+        LedgerDatabase db = requireDatabase();
+
+        // In memory mode ledger.db only holds the last checkpoint, so take a fresh one to copy from.
+        CompletableFuture<LedgerBackup.Result> result = new CompletableFuture<>();
+        LedgerBackup target = backup;
+        db.checkpointAsync().thenCompose(sequence -> target.start()).whenComplete((value, error) -> {
+            if (error == null) {
+                logger.info("Backed up ledger to " + value.file().getName() + " ("
+                        + value.databaseBytes() / 1024L + " KiB, " + value.compressedBytes() / 1024L
+                        + " KiB compressed) in " + value.elapsedMillis() + " ms.");
+                result.complete(value);
+            } else {
+                result.completeExceptionally(new LedgerException("Unable to back up the ledger: " + error.getMessage(), error));
+            }
+        });
+        return result;
+    }
+
+    public LedgerSettings settings() {
+        return requireDatabase().settings();
+    }
+
+    /**
+     * Writes the in-memory ledger to {@code ledger.db}; blocks, and does nothing in sqlite mode.
+     */
+    public void checkpoint() {
+        LedgerDatabase db = requireDatabase();
+        try {
+            long started = System.nanoTime();
+            long sequence = db.checkpoint();
+            if (db.settings().memoryMode()) {
+                logger.fine("Checkpointed the in-memory ledger at journal batch " + sequence + " in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms.");
             }
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to query ledger by location", exception);
+            throw new LedgerException("Unable to checkpoint the ledger", exception);
+        }
+    }
+
+    /**
+     * Archives stale LOST and REDEEMED crystals one writer task per batch; blocks until done.
+     */
+    public int archiveTerminalCrystals() {
+        LedgerDatabase db = requireDatabase();
+        LedgerSettings settings = db.settings();
+        if (!settings.archiveEnabled()) {
+            return 0;
         }
 
-        return Optional.empty();
+        long started = System.nanoTime();
+        long now = Instant.now().getEpochSecond();
+        long cutoff = now - TimeUnit.DAYS.toSeconds(settings.archiveAfterDays());
+        int batchSize = settings.archiveBatchSize();
+        int archived = 0;
+        try {
+            int moved;
+            do {
+                moved = db.write(connection -> CrystalArchive.archiveBatch(connection, cutoff, now, batchSize));
+                archived += moved;
+            } while (moved == batchSize);
+        } catch (SQLException exception) {
+            throw new LedgerException("Unable to archive terminal crystals after " + archived + " rows", exception);
+        }
+
+        if (archived > 0) {
+            logger.info("Archived " + archived + " terminal crystals in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms.");
+        }
+        return archived;
     }
 
-    public synchronized Optional<LedgerEntry> findByUuid(UUID uuid) {
-        ensureConnection();
+    private static int countMismatches(Map<Long, long[]> expected, Map<Long, long[]> actual) {
+        Set<Long> keys = new HashSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                SELECT uuid, area_id, status, world, x, y, z
-                FROM crystals
-                WHERE uuid = ?
-                LIMIT 1
-                """)) {
-            statement.setString(1, uuid.toString());
+        int mismatches = 0;
+        long[] empty = new long[LedgerCodec.STATUS_REDEEMED + 1];
+        for (Long key : keys) {
+            if (!Arrays.equals(expected.getOrDefault(key, empty), actual.getOrDefault(key, empty))) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return Optional.of(mapRow(resultSet));
-                }
+    private static SupplySnapshot toSnapshot(long[] counts) {
+        return new SupplySnapshot(
+                (int) counts[LedgerCodec.STATUS_ACTIVE],
+                (int) counts[LedgerCodec.STATUS_HELD],
+                (int) counts[LedgerCodec.STATUS_LOST],
+                (int) counts[LedgerCodec.STATUS_REDEEMED]
+        );
+    }
+
+    public Map<UUID, LedgerEntry> findByUuids(Collection<UUID> uuids) {
+        LedgerDatabase db = requireDatabase();
+        LedgerCache<UUID, LedgerEntry> cache = entryCache;
+
+        Map<UUID, LedgerEntry> results = new HashMap<>();
+        List<UUID> missing = new ArrayList<>();
+        for (UUID uuid : new LinkedHashSet<>(uuids)) {
+            LedgerEntry cached = cache.get(uuid);
+            if (cached != null) {
+                results.put(uuid, cached);
+            } else {
+                missing.add(uuid);
             }
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        long generation = cache.generation();
+        List<UUID> distinct = List.copyOf(missing);
+        try {
+            db.read(connection -> {
+                for (int start = 0; start < distinct.size(); start += BULK_CHUNK_SIZE) {
+                    List<UUID> chunk = distinct.subList(start, Math.min(start + BULK_CHUNK_SIZE, distinct.size()));
+                    try (PreparedStatement statement = connection.prepareStatement("""
+                            SELECT uuid, area, status, world, x, y, z
+                            FROM crystals
+                            WHERE uuid IN (%1$s)
+                            UNION ALL
+                            SELECT uuid, area, status, world, x, y, z
+                            FROM crystals_archive
+                            WHERE uuid IN (%1$s)
+                            """.formatted(placeholders(chunk.size())))) {
+                        bindUuids(statement, 1, chunk);
+                        bindUuids(statement, chunk.size() + 1, chunk);
+
+                        try (ResultSet resultSet = statement.executeQuery()) {
+                            while (resultSet.next()) {
+                                LedgerEntry entry = mapRow(resultSet);
+                                results.put(entry.uuid(), entry);
+                                cache.put(entry.uuid(), entry, generation);
+                            }
+                        }
+                    }
+                }
+                return null;
+            });
         } catch (SQLException exception) {
             throw new LedgerException("Unable to query ledger by UUID", exception);
         }
+        return results;
+    }
 
-        return Optional.empty();
+    public Map<UUID, TransitionResult> markHeldAll(Collection<UUID> uuids) {
+        return transitionAll(uuids, LedgerCodec.STATUS_HELD, new int[]{LedgerCodec.STATUS_ACTIVE},
+                false, null, null);
     }
 
-    public synchronized boolean markHeld(UUID uuid) {
-        return updateStatus(uuid, STATUS_HELD, null, STATUS_ACTIVE);
+    public Map<UUID, TransitionResult> markLostAll(Collection<UUID> uuids, String eventType,
+                                                   Function<UUID, String> details) {
+        return transitionAll(uuids, LedgerCodec.STATUS_LOST,
+                new int[]{LedgerCodec.STATUS_ACTIVE, LedgerCodec.STATUS_HELD}, true, eventType, details);
     }
 
-    public synchronized boolean markLost(UUID uuid) {
-        return markLost(uuid, null);
+    public Map<UUID, TransitionResult> markRedeemedAll(Collection<UUID> uuids, String eventType,
+                                                       Function<UUID, String> details) {
+        return transitionAll(uuids, LedgerCodec.STATUS_REDEEMED, new int[]{LedgerCodec.STATUS_HELD}, true,
+                eventType == null ? EVENT_REDEEMED : eventType, details);
     }
 
-    public synchronized boolean markLost(UUID uuid, Location location) {
-        boolean updated = updateStatus(uuid, STATUS_LOST, location, STATUS_ACTIVE, STATUS_HELD);
-        if (updated) {
-            clearOfflineHolding(uuid);
+    private Map<UUID, TransitionResult> transitionAll(Collection<UUID> uuids, int newStatus, int[] allowedStatuses,
+                                                      boolean clearOffline, String eventType,
+                                                      Function<UUID, String> details) {
+        List<UUID> distinct = List.copyOf(new LinkedHashSet<>(uuids));
+        if (distinct.isEmpty()) {
+            return Map.of();
         }
-        return updated;
+
+        List<SupplyCounters.Delta> deltas = new ArrayList<>();
+        return await(writeAsync("Unable to update ledger entry statuses", connection -> {
+            Map<UUID, TransitionResult> outcomes = new LinkedHashMap<>();
+            for (int start = 0; start < distinct.size(); start += BULK_CHUNK_SIZE) {
+                List<UUID> chunk = distinct.subList(start, Math.min(start + BULK_CHUNK_SIZE, distinct.size()));
+                transitionChunk(connection, chunk, newStatus, allowedStatuses, clearOffline, eventType, details,
+                        outcomes, deltas);
+            }
+            SupplyCounters.persist(connection, deltas);
+            return outcomes;
+        }, outcomes -> {
+            supplyCounters.apply(deltas);
+            outcomes.forEach((uuid, result) -> untrackIfUpdated(uuid, result.updated()));
+        }));
     }
 
-    public synchronized boolean markLostWithEvent(UUID uuid, Location location, String eventType, String details) {
-        boolean updated = markLost(uuid, location);
-        if (updated && eventType != null) {
-            recordEvent(uuid, eventType, details);
+    private void transitionChunk(Connection connection, List<UUID> chunk, int newStatus, int[] allowedStatuses,
+                                 boolean clearOffline, String eventType, Function<UUID, String> details,
+                                 Map<UUID, TransitionResult> outcomes, List<SupplyCounters.Delta> deltas)
+            throws SQLException {
+        Map<UUID, Integer> previous = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement("""
+                SELECT uuid, status FROM crystals WHERE uuid IN (%1$s)
+                UNION ALL
+                SELECT uuid, status FROM crystals_archive WHERE uuid IN (%1$s)
+                """.formatted(placeholders(chunk.size())))) {
+            bindUuids(select, 1, chunk);
+            bindUuids(select, chunk.size() + 1, chunk);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    previous.put(LedgerCodec.fromBytes(resultSet.getBytes("uuid")), resultSet.getInt("status"));
+                }
+            }
+        }
+
+        long now = Instant.now().getEpochSecond();
+        List<UUID> updated = new ArrayList<>();
+        try (PreparedStatement update = connection.prepareStatement("""
+                UPDATE crystals
+                SET status = ?, updated_at = ?, world = NULL, x = NULL, y = NULL, z = NULL
+                WHERE status IN (%s) AND uuid IN (%s)
+                RETURNING uuid, COALESCE(area, 0), COALESCE(origin_world, 0)
+                """.formatted(placeholders(allowedStatuses.length), placeholders(chunk.size())))) {
+            int index = 1;
+            update.setInt(index++, newStatus);
+            update.setLong(index++, now);
+            for (int allowedStatus : allowedStatuses) {
+                update.setInt(index++, allowedStatus);
+            }
+            bindUuids(update, index, chunk);
+            try (ResultSet resultSet = update.executeQuery()) {
+                while (resultSet.next()) {
+                    UUID uuid = LedgerCodec.fromBytes(resultSet.getBytes(1));
+                    int area = resultSet.getInt(2);
+                    int originWorld = resultSet.getInt(3);
+                    updated.add(uuid);
+                    deltas.add(new SupplyCounters.Delta(area, originWorld, previous.get(uuid), -1));
+                    deltas.add(new SupplyCounters.Delta(area, originWorld, newStatus, 1));
+                }
+            }
+        }
+
+        Set<UUID> updatedSet = new HashSet<>(updated);
+        for (UUID uuid : chunk) {
+            Integer status = previous.get(uuid);
+            if (status == null) {
+                outcomes.put(uuid, new TransitionResult(TransitionOutcome.NOT_FOUND, null));
+            } else if (updatedSet.contains(uuid)) {
+                outcomes.put(uuid, new TransitionResult(TransitionOutcome.UPDATED, LedgerCodec.statusName(status)));
+            } else {
+                outcomes.put(uuid, new TransitionResult(TransitionOutcome.WRONG_STATUS, LedgerCodec.statusName(status)));
+            }
+        }
+
+        if (updated.isEmpty()) {
+            return;
+        }
+
+        if (clearOffline) {
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM offline_crystals WHERE crystal_uuid IN (%s)".formatted(placeholders(updated.size())))) {
+                bindUuids(delete, 1, updated);
+                delete.executeUpdate();
+            }
+        }
+
+        String type = eventType == null ? LedgerCodec.statusName(newStatus) : eventType;
+        List<CrystalEvent> events = new ArrayList<>(updated.size());
+        for (UUID uuid : updated) {
+            events.add(CrystalEvent.transition(uuid, type, details == null ? null : details.apply(uuid), now, newStatus,
+                    null, null, null, null));
         }
-        return updated;
+        appendEvents(connection, events);
     }
 
-    public synchronized boolean markRedeemed(UUID uuid) {
-        return markRedeemed(uuid, EVENT_REDEEMED, null);
+    // Runs inside a write task, so the events and their change feed lines are kept or dropped together.
+    private void appendEvents(Connection connection, List<CrystalEvent> events) throws SQLException {
+        CrystalEvent.insert(connection, events);
+        LedgerDatabase db = requireDatabase();
+        for (CrystalEvent event : events) {
+            db.publish(event, event.area() == null ? null : areaNames.nameOf(event.area()),
+                    event.originWorld() == null ? null : worlds.nameOf(event.originWorld()),
+                    event.world() == null ? null : worlds.nameOf(event.world()));
+        }
     }
 
-    public synchronized boolean markRedeemed(UUID uuid, String eventType, String details) {
-        boolean updated = updateStatus(uuid, STATUS_REDEEMED, null, STATUS_HELD);
-        if (updated) {
-            clearOfflineHolding(uuid);
-            recordEvent(uuid, eventType == null ? EVENT_REDEEMED : eventType, details);
+    private static String placeholders(int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(i == 0 ? "?" : ", ?");
         }
-        return updated;
+        return builder.toString();
     }
 
-    public synchronized SupplySnapshot countByStatus() {
-        ensureConnection();
+    private static void bindUuids(PreparedStatement statement, int firstIndex, List<UUID> uuids) throws SQLException {
+        int index = firstIndex;
+        for (UUID uuid : uuids) {
+            statement.setBytes(index++, LedgerCodec.toBytes(uuid));
+        }
+    }
+
+    public List<LedgerEntry> listEntriesByStatusAfter(String status, UUID after, int limit) {
+        LedgerDatabase db = requireDatabase();
 
-        EnumMap<CrystalStatus, Integer> counts = new EnumMap<>(CrystalStatus.class);
-        for (CrystalStatus status : CrystalStatus.values()) {
-            counts.put(status, 0);
+        int code;
+        try {
+            code = LedgerCodec.statusCode(status);
+        } catch (IllegalArgumentException exception) {
+            throw new LedgerException(exception.getMessage());
         }
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                SELECT status, COUNT(*) AS total
-                FROM crystals
-                GROUP BY status
-                """)) {
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    String status = resultSet.getString("status");
-                    int total = resultSet.getInt("total");
-                    if (status != null) {
-                        try {
-                            CrystalStatus crystalStatus = CrystalStatus.valueOf(status.toUpperCase(Locale.ROOT));
-                            counts.put(crystalStatus, total);
-                        } catch (IllegalArgumentException ignored) {
-                            plugin.getLogger().warning("Unknown crystal status in ledger: " + status);
+        try {
+            // +status keeps SQLite on the primary key instead of sorting the whole status per page.
+            return db.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT uuid, area, status, world, x, y, z
+                        FROM crystals
+                        WHERE uuid > ? AND +status = ?
+                        ORDER BY uuid
+                        LIMIT ?
+                        """)) {
+                    statement.setBytes(1, after == null ? new byte[0] : LedgerCodec.toBytes(after));
+                    statement.setInt(2, code);
+                    statement.setInt(3, limit);
+
+                    List<LedgerEntry> entries = new ArrayList<>(limit);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            entries.add(mapRow(resultSet));
                         }
                     }
+                    return entries;
                 }
-            }
+            });
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to count crystals by status", exception);
+            throw new LedgerException("Unable to list ledger entries by status", exception);
         }
+    }
 
-        return new SupplySnapshot(
-                counts.get(CrystalStatus.ACTIVE),
-                counts.get(CrystalStatus.HELD),
-                counts.get(CrystalStatus.LOST),
-                counts.get(CrystalStatus.REDEEMED)
-        );
+    public List<LedgerEntry> listEntriesByStatus(String... statuses) {
+        List<LedgerEntry> entries = new ArrayList<>();
+        forEachEntryByStatus(entries::add, statuses);
+        return entries;
     }
 
-    public synchronized List<LedgerEntry> listEntriesByStatus(String... statuses) {
-        ensureConnection();
+    /**
+     * {@code action} runs while a read connection is borrowed, so it must not block on further ledger reads.
+     */
+    public void forEachEntryByStatus(Consumer<LedgerEntry> action, String... statuses) {
+        LedgerDatabase db = requireDatabase();
 
         if (statuses == null || statuses.length == 0) {
             throw new LedgerException("At least one status must be provided");
         }
 
+        int[] codes = new int[statuses.length];
         StringBuilder placeholders = new StringBuilder();
         for (int i = 0; i < statuses.length; i++) {
+            try {
+                codes[i] = LedgerCodec.statusCode(statuses[i]);
+            } catch (IllegalArgumentException exception) {
+                throw new LedgerException(exception.getMessage());
+            }
             if (i > 0) {
                 placeholders.append(", ");
             }
@@ -412,190 +1007,193 @@ public class MintLedger {
         }
 
         String sql = """
-                SELECT uuid, area_id, status, world, x, y, z
+                SELECT uuid, area, status, world, x, y, z
                 FROM crystals
                 WHERE status IN (%s)
                 """.formatted(placeholders);
 
-        List<LedgerEntry> entries = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            for (int i = 0; i < statuses.length; i++) {
-                statement.setString(i + 1, statuses[i]);
-            }
+        try {
+            db.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setFetchSize(db.settings().scanFetchSize());
+                    for (int i = 0; i < codes.length; i++) {
+                        statement.setInt(i + 1, codes[i]);
+                    }
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    entries.add(mapRow(resultSet));
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            action.accept(mapRow(resultSet));
+                        }
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException exception) {
             throw new LedgerException("Unable to list ledger entries by status", exception);
         }
-
-        return entries;
     }
 
-    private boolean updateStatus(UUID uuid, String newStatus, Location location, String... allowedStatuses) {
-        ensureConnection();
-
-        long now = Instant.now().getEpochSecond();
+    // One conditional UPDATE per allowed status, so whichever matched names the previous status.
+    private TransitionResult transition(Connection connection, UUID uuid, int newStatus, LocationSnapshot location,
+                                        long now, List<SupplyCounters.Delta> deltas, int... allowedStatuses)
+            throws SQLException {
+        byte[] key = LedgerCodec.toBytes(uuid);
 
-        StringBuilder sql = new StringBuilder("""
+        try (PreparedStatement statement = connection.prepareStatement("""
                 UPDATE crystals
                 SET status = ?, updated_at = ?, world = ?, x = ?, y = ?, z = ?
-                WHERE uuid = ?
-                """);
-
-        if (allowedStatuses != null && allowedStatuses.length > 0) {
-            sql.append(" AND status IN (");
-            for (int i = 0; i < allowedStatuses.length; i++) {
-                if (i > 0) {
-                    sql.append(", ");
-                }
-                sql.append("?");
-            }
-            sql.append(")");
-        }
-
-        try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
-            int index = 1;
-            statement.setString(index++, newStatus);
-            statement.setLong(index++, now);
+                WHERE uuid = ? AND status = ?
+                RETURNING COALESCE(area, 0), COALESCE(origin_world, 0)
+                """)) {
+            statement.setInt(1, newStatus);
+            statement.setLong(2, now);
 
             if (location != null) {
-                statement.setString(index++, location.getWorld().getName());
-                statement.setInt(index++, location.getBlockX());
-                statement.setInt(index++, location.getBlockY());
-                statement.setInt(index++, location.getBlockZ());
+                statement.setInt(3, location.worldId());
+                statement.setInt(4, location.x());
+                statement.setInt(5, location.y());
+                statement.setInt(6, location.z());
             } else {
-                statement.setNull(index++, Types.VARCHAR);
-                statement.setNull(index++, Types.INTEGER);
-                statement.setNull(index++, Types.INTEGER);
-                statement.setNull(index++, Types.INTEGER);
+                statement.setNull(3, Types.INTEGER);
+                statement.setNull(4, Types.INTEGER);
+                statement.setNull(5, Types.INTEGER);
+                statement.setNull(6, Types.INTEGER);
             }
 
-            statement.setString(index++, uuid.toString());
-
-            if (allowedStatuses != null && allowedStatuses.length > 0) {
-                for (String allowedStatus : allowedStatuses) {
-                    statement.setString(index++, allowedStatus);
+            statement.setBytes(7, key);
+            for (int allowedStatus : allowedStatuses) {
+                statement.setInt(8, allowedStatus);
+                try (ResultSet returned = statement.executeQuery()) {
+                    if (returned.next()) {
+                        int area = returned.getInt(1);
+                        int originWorld = returned.getInt(2);
+                        deltas.add(new SupplyCounters.Delta(area, originWorld, allowedStatus, -1));
+                        deltas.add(new SupplyCounters.Delta(area, originWorld, newStatus, 1));
+                        return new TransitionResult(TransitionOutcome.UPDATED, LedgerCodec.statusName(allowedStatus));
+                    }
                 }
             }
+        }
 
-            return statement.executeUpdate() > 0;
-        } catch (SQLException exception) {
-            throw new LedgerException("Unable to update ledger entry status", exception);
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT status FROM crystals WHERE uuid = ?
+                UNION ALL
+                SELECT status FROM crystals_archive WHERE uuid = ?
+                """)) {
+            statement.setBytes(1, key);
+            statement.setBytes(2, key);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return new TransitionResult(TransitionOutcome.WRONG_STATUS, LedgerCodec.statusName(resultSet.getInt(1)));
+                }
+            }
         }
+        return new TransitionResult(TransitionOutcome.NOT_FOUND, null);
     }
 
-    public synchronized void replaceOfflineHoldings(UUID playerUuid, String playerName, Map<UUID, List<String>> contexts) {
-        ensureConnection();
+    public void replaceOfflineHoldings(UUID playerUuid, String playerName, Map<UUID, List<String>> contexts) {
+        LedgerDatabase db = requireDatabase();
 
-        boolean previousAutoCommit;
         try {
-            previousAutoCommit = connection.getAutoCommit();
-            connection.setAutoCommit(false);
+            db.write(connection -> OfflineHoldingsBuffer.write(connection,
+                    Map.of(playerUuid, new OfflineHoldingsBuffer.Pending(playerName, joinContexts(contexts)))));
         } catch (SQLException exception) {
-            throw new LedgerException("Unable to configure database transaction for offline holdings", exception);
+            throw new LedgerException("Unable to update offline crystal holdings", exception);
         }
+    }
 
-        long now = Instant.now().getEpochSecond();
-
-        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM offline_crystals WHERE player_uuid = ?")) {
-            delete.setString(1, playerUuid.toString());
-            delete.executeUpdate();
+    public void clearOfflineHoldings(UUID playerUuid) {
+        LedgerDatabase db = requireDatabase();
 
-            if (contexts != null && !contexts.isEmpty()) {
-                try (PreparedStatement insert = connection.prepareStatement("""
-                        INSERT INTO offline_crystals (crystal_uuid, player_uuid, player_name, details, recorded_at)
-                        VALUES (?, ?, ?, ?, ?)
-                        """)) {
-                    for (Map.Entry<UUID, List<String>> entry : contexts.entrySet()) {
-                        insert.setString(1, entry.getKey().toString());
-                        insert.setString(2, playerUuid.toString());
-                        if (playerName == null) {
-                            insert.setNull(3, Types.VARCHAR);
-                        } else {
-                            insert.setString(3, playerName);
-                        }
+        try {
+            db.write(connection -> OfflineHoldingsBuffer.write(connection,
+                    Map.of(playerUuid, new OfflineHoldingsBuffer.Pending(null, null))));
+        } catch (SQLException exception) {
+            throw new LedgerException("Unable to clear offline holdings for player", exception);
+        }
+    }
 
-                        String details = joinDetails(entry.getValue());
-                        if (details == null) {
-                            insert.setNull(4, Types.VARCHAR);
-                        } else {
-                            insert.setString(4, details);
-                        }
+    public void queueOfflineHoldings(UUID playerUuid, String playerName, Map<UUID, List<String>> contexts) {
+        requireDatabase();
+        offlineHoldings.replace(playerUuid, playerName, joinContexts(contexts));
+    }
 
-                        insert.setLong(5, now);
-                        insert.addBatch();
-                    }
+    public void queueOfflineHoldingsClear(UUID playerUuid) {
+        requireDatabase();
+        offlineHoldings.clear(playerUuid);
+    }
 
-                    insert.executeBatch();
-                }
-            }
+    /**
+     * Writes buffered quits and joins as one writer task; a failed flush keeps them for the next one.
+     */
+    public CompletableFuture<Integer> flushOfflineHoldings() {
+        Map<UUID, OfflineHoldingsBuffer.Pending> drained = offlineHoldings.drain();
+        if (drained.isEmpty()) {
+            return CompletableFuture.completedFuture(0);
+        }
 
-            connection.commit();
-        } catch (SQLException exception) {
-            try {
-                connection.rollback();
-            } catch (SQLException rollbackException) {
-                plugin.getLogger().warning("Failed to roll back offline holdings update: " + rollbackException.getMessage());
-            }
-            throw new LedgerException("Unable to update offline crystal holdings", exception);
-        } finally {
-            try {
-                connection.setAutoCommit(previousAutoCommit);
-            } catch (SQLException exception) {
-                plugin.getLogger().warning("Failed to restore auto-commit state: " + exception.getMessage());
+        CompletableFuture<Integer> flushed = writeAsync("Unable to update offline crystal holdings",
+                connection -> OfflineHoldingsBuffer.write(connection, drained));
+        flushed.whenComplete((changed, error) -> {
+            if (error != null) {
+                offlineHoldings.restore(drained);
             }
-        }
+        });
+        return flushed;
     }
 
-    public synchronized void clearOfflineHoldings(UUID playerUuid) {
-        ensureConnection();
-
-        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM offline_crystals WHERE player_uuid = ?")) {
-            statement.setString(1, playerUuid.toString());
-            statement.executeUpdate();
-        } catch (SQLException exception) {
-            throw new LedgerException("Unable to clear offline holdings for player", exception);
+    private Map<UUID, String> joinContexts(Map<UUID, List<String>> contexts) {
+        if (contexts == null || contexts.isEmpty()) {
+            return Map.of();
         }
-    }
 
-    public synchronized List<OfflineHolding> listOfflineHoldings() {
-        ensureConnection();
+        Map<UUID, String> joined = new HashMap<>();
+        contexts.forEach((crystal, details) -> joined.put(crystal, joinDetails(details)));
+        return joined;
+    }
 
+    public List<OfflineHolding> listOfflineHoldings() {
         List<OfflineHolding> results = new ArrayList<>();
+        forEachOfflineHolding(results::add);
+        return results;
+    }
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                SELECT crystal_uuid, player_uuid, player_name, details
-                FROM offline_crystals
-                """)) {
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    UUID crystalUuid = UUID.fromString(resultSet.getString("crystal_uuid"));
-                    String playerUuid = resultSet.getString("player_uuid");
-                    UUID holderUuid = playerUuid == null ? null : UUID.fromString(playerUuid);
-                    String playerName = resultSet.getString("player_name");
-                    String details = resultSet.getString("details");
-                    results.add(new OfflineHolding(crystalUuid, holderUuid, playerName, details));
+    /**
+     * Flushes buffered quits and joins first, so the scan sees them.
+     */
+    public void forEachOfflineHolding(Consumer<OfflineHolding> action) {
+        LedgerDatabase db = requireDatabase();
+        await(flushOfflineHoldings());
+
+        try {
+            db.read(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        SELECT crystal_uuid, player_uuid, player_name, details
+                        FROM offline_crystals
+                        """)) {
+                    statement.setFetchSize(db.settings().scanFetchSize());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            UUID crystalUuid = LedgerCodec.fromBytes(resultSet.getBytes("crystal_uuid"));
+                            byte[] playerUuid = resultSet.getBytes("player_uuid");
+                            UUID holderUuid = playerUuid == null ? null : LedgerCodec.fromBytes(playerUuid);
+                            String playerName = resultSet.getString("player_name");
+                            String details = resultSet.getString("details");
+                            action.accept(new OfflineHolding(crystalUuid, holderUuid, playerName, details));
+                        }
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException exception) {
             throw new LedgerException("Unable to list offline crystal holdings", exception);
         }
-
-        return results;
     }
 
-    private void clearOfflineHolding(UUID uuid) {
-        ensureConnection();
-
+    private void clearOfflineHolding(Connection connection, UUID uuid) throws SQLException {
         try (PreparedStatement statement = connection.prepareStatement("DELETE FROM offline_crystals WHERE crystal_uuid = ?")) {
-            statement.setString(1, uuid.toString());
+            statement.setBytes(1, LedgerCodec.toBytes(uuid));
             statement.executeUpdate();
-        } catch (SQLException exception) {
-            plugin.getLogger().warning("Failed to clear offline record for crystal " + uuid + ": " + exception.getMessage());
         }
     }
 
@@ -607,56 +1205,115 @@ public class MintLedger {
         return String.join("; ", details);
     }
 
-    private void recordEvent(UUID uuid, String eventType, String details) {
-        ensureConnection();
+    public void close() {
+        synchronized (lifecycleLock) {
+            if (database != null) {
+                try {
+                    await(flushOfflineHoldings());
+                } catch (LedgerException exception) {
+                    logger.warning("Failed to flush offline holdings on shutdown: " + exception.getMessage());
+                }
+                backup.shutdown(BACKUP_SHUTDOWN_TIMEOUT_MILLIS);
+                database.close();
+                database = null;
+                activeIndex.clear();
+                supplyCounters.clear();
+                entryCache.clear();
+                worlds.clear();
+                areaNames.clear();
+            }
+        }
+    }
 
-        long now = Instant.now().getEpochSecond();
+    private LedgerDatabase requireDatabase() {
+        LedgerDatabase db = database;
+        if (db == null) {
+            throw new LedgerException("Ledger has not been initialised");
+        }
+        return db;
+    }
 
-        try (PreparedStatement statement = connection.prepareStatement("""
-                INSERT INTO crystal_events (crystal_uuid, event_type, details, occurred_at)
-                VALUES (?, ?, ?, ?)
-                """)) {
-            statement.setString(1, uuid.toString());
-            statement.setString(2, eventType);
-            if (details == null) {
-                statement.setNull(3, Types.VARCHAR);
+    private void untrackIfUpdated(UUID uuid, boolean updated) {
+        if (updated) {
+            activeIndex.remove(uuid);
+            entryCache.invalidate(uuid);
+        }
+    }
+
+    public <T> CompletableFuture<T> writeAsync(String failureMessage, SqlWork<T> work) {
+        return writeAsync(failureMessage, work, null);
+    }
+
+    // afterCommit runs on the writer thread once the batch commits, before the future completes.
+    private <T> CompletableFuture<T> writeAsync(String failureMessage, SqlWork<T> work, Consumer<T> afterCommit) {
+        LedgerDatabase db = requireDatabase();
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        db.submit(work).whenComplete((value, error) -> {
+            if (error == null) {
+                if (afterCommit != null) {
+                    afterCommit.accept(value);
+                }
+                result.complete(value);
+            } else if (error instanceof LedgerException ledgerException) {
+                result.completeExceptionally(ledgerException);
             } else {
-                statement.setString(3, details);
+                result.completeExceptionally(new LedgerException(failureMessage, error));
             }
-            statement.setLong(4, now);
-            statement.executeUpdate();
-        } catch (SQLException exception) {
-            plugin.getLogger().warning("Failed to log ledger event for crystal " + uuid + ": " + exception.getMessage());
-        }
+        });
+        return result;
     }
 
-    public synchronized void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException exception) {
-                plugin.getLogger().warning("Failed to close ledger connection: " + exception.getMessage());
-            } finally {
-                connection = null;
+    private static CompletableFuture<Boolean> updatedFlag(CompletableFuture<TransitionResult> transition) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        transition.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value.updated());
+            } else {
+                result.completeExceptionally(error);
             }
-        }
+        });
+        return result;
     }
 
-    private void ensureConnection() {
-        if (connection == null) {
-            throw new LedgerException("Ledger has not been initialised");
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof LedgerException ledgerException) {
+                throw ledgerException;
+            }
+            throw new LedgerException("Ledger write failed", exception.getCause());
         }
     }
 
-    private static LedgerEntry mapRow(ResultSet resultSet) throws SQLException {
-        UUID uuid = UUID.fromString(resultSet.getString("uuid"));
-        String areaId = resultSet.getString("area_id");
-        String status = resultSet.getString("status");
-        String world = resultSet.getString("world");
+    private LedgerEntry mapRow(ResultSet resultSet) throws SQLException {
+        UUID uuid = LedgerCodec.fromBytes(resultSet.getBytes("uuid"));
+        String areaId = areaName(resultSet);
+        String status = LedgerCodec.statusName(resultSet.getInt("status"));
+        String world = worldName(resultSet);
         Integer x = getNullableInteger(resultSet, "x");
         Integer y = getNullableInteger(resultSet, "y");
         Integer z = getNullableInteger(resultSet, "z");
-        return new LedgerEntry(uuid, areaId, status == null ? null : status.toUpperCase(Locale.ROOT), world, x, y, z);
+        return new LedgerEntry(uuid, areaId, status, world, x, y, z);
+    }
+
+    private String areaName(ResultSet resultSet) throws SQLException {
+        Integer key = getNullableInteger(resultSet, "area");
+        return key == null ? null : areaNames.nameOf(key);
+    }
+
+    private String worldName(ResultSet resultSet) throws SQLException {
+        Integer id = getNullableInteger(resultSet, "world");
+        return id == null ? null : worlds.nameOf(id);
+    }
+
+    private static BlockLocation capture(Location location) {
+        if (location == null || location.getWorld() == null) {
+            return null;
+        }
+        return new BlockLocation(location.getWorld().getName(), location.getBlockX(), location.getBlockY(),
+                location.getBlockZ());
     }
 
     private static Integer getNullableInteger(ResultSet resultSet, String column) throws SQLException {
@@ -684,9 +1341,24 @@ public class MintLedger {
         }
     }
 
+    public record SupplyTrend(SupplyHistory.Resolution resolution, List<SupplyHistory.Point> points) {
+    }
+
     public record OfflineHolding(UUID crystalUuid, UUID playerUuid, String playerName, String details) {
     }
 
+    public enum TransitionOutcome {
+        UPDATED,
+        NOT_FOUND,
+        WRONG_STATUS
+    }
+
+    public record TransitionResult(TransitionOutcome outcome, String previousStatus) {
+        public boolean updated() {
+            return outcome == TransitionOutcome.UPDATED;
+        }
+    }
+
     public enum CrystalStatus {
         ACTIVE,
         HELD,
@@ -700,6 +1372,12 @@ public class MintLedger {
     public record ChunkCoordinate(int x, int z) {
     }
 
+    private record BlockLocation(String world, int x, int y, int z) {
+    }
+
+    private record LocationSnapshot(int worldId, int x, int y, int z) {
+    }
+
     public static class LedgerException extends RuntimeException {
         public LedgerException(String message) {
             super(message);
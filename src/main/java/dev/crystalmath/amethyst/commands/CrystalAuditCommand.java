@@ -1,6 +1,9 @@
 package dev.crystalmath.amethyst.commands;
 
 import dev.crystalmath.amethyst.MintLedger;
+import dev.crystalmath.amethyst.ledger.CacheMetrics;
+import dev.crystalmath.amethyst.ledger.LatencySnapshot;
+import dev.crystalmath.amethyst.ledger.WriteQueueMetrics;
 import dev.crystalmath.amethyst.util.MintedCrystalUtil;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -22,6 +25,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
@@ -30,11 +34,14 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class CrystalAuditCommand implements CommandExecutor {
     private static final int MAX_DETAILS = 5;
+    private static final int MAX_TIMINGS = 5;
+    private static final int AUDIT_PAGE_SIZE = 500;
 
     private final JavaPlugin plugin;
     private final MintLedger ledger;
@@ -129,52 +136,91 @@ public class CrystalAuditCommand implements CommandExecutor {
         return true;
     }
 
-    private AuditReport runWorldAudit(List<MintLedger.LedgerEntry> activeEntries) {
-        CompletableFuture<AuditReport> future = new CompletableFuture<>();
-        Bukkit.getScheduler().runTask(plugin, () -> future.complete(auditWorld(activeEntries)));
+    // No read connection is held while the main thread checks a page.
+    private AuditReport runWorldAudit() {
+        ActiveTally tally = new ActiveTally();
+        Map<UUID, List<String>> contexts;
         try {
-            return future.get();
-        } catch (InterruptedException exception) {
-            Thread.currentThread().interrupt();
-            return AuditReport.failure("Interrupted while waiting for world scan");
-        } catch (ExecutionException exception) {
+            UUID lastSeen = null;
+            List<MintLedger.LedgerEntry> page;
+            do {
+                page = ledger.listEntriesByStatusAfter(MintLedger.STATUS_ACTIVE, lastSeen, AUDIT_PAGE_SIZE);
+                if (!page.isEmpty()) {
+                    lastSeen = page.get(page.size() - 1).uuid();
+                    checkActivePage(page, tally);
+                }
+            } while (page.size() == AUDIT_PAGE_SIZE);
+            contexts = callOnMainThread(this::collectMintedContexts);
+        } catch (CompletionException exception) {
             String message = exception.getCause() == null ? exception.getMessage() : exception.getCause().getMessage();
             return AuditReport.failure(message == null ? "Unknown failure during world scan" : message);
         }
-    }
 
-    private AuditReport auditWorld(List<MintLedger.LedgerEntry> activeEntries) {
-        int confirmedActive = 0;
-        List<MintLedger.LedgerEntry> missingActive = new ArrayList<>();
-        List<MintLedger.LedgerEntry> unloadedActive = new ArrayList<>();
+        try {
+            ledger.forEachOfflineHolding(holding -> {
+                String playerName = holding.playerName();
+                UUID playerUuid = holding.playerUuid();
+                String identifier = playerName != null ? playerName : (playerUuid == null ? "Unknown player" : playerUuid.toString());
+                String details = holding.details();
+                String context = "Offline player " + identifier + (details == null || details.isEmpty() ? "" : " - " + details);
+                contexts.computeIfAbsent(holding.crystalUuid(), key -> new ArrayList<>()).add(context);
+            });
+        } catch (MintLedger.LedgerException exception) {
+            return AuditReport.failure("Unable to read offline crystal holdings: " + exception.getMessage());
+        }
 
-        for (MintLedger.LedgerEntry entry : activeEntries) {
-            if (entry.world() == null || entry.x() == null || entry.y() == null || entry.z() == null) {
-                missingActive.add(entry);
-                continue;
-            }
+        return AuditReport.success(tally.confirmed, tally.missing, tally.unloaded, contexts);
+    }
 
-            World world = Bukkit.getWorld(entry.world());
-            if (world == null) {
-                missingActive.add(entry);
-                continue;
+    private void checkActivePage(List<MintLedger.LedgerEntry> page, ActiveTally tally) {
+        callOnMainThread(() -> {
+            for (MintLedger.LedgerEntry entry : page) {
+                checkActive(entry, tally);
             }
+            return null;
+        });
+    }
 
-            Location location = new Location(world, entry.x(), entry.y(), entry.z());
-            int chunkX = location.getBlockX() >> 4;
-            int chunkZ = location.getBlockZ() >> 4;
-            if (!world.isChunkLoaded(chunkX, chunkZ)) {
-                unloadedActive.add(entry);
-                continue;
+    private <T> T callOnMainThread(Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException exception) {
+                future.completeExceptionally(exception);
             }
+        });
+        return future.join();
+    }
 
-            if (world.getBlockAt(location).getType() == org.bukkit.Material.AMETHYST_CLUSTER) {
-                confirmedActive++;
-            } else {
-                missingActive.add(entry);
-            }
+    private void checkActive(MintLedger.LedgerEntry entry, ActiveTally tally) {
+        if (entry.world() == null || entry.x() == null || entry.y() == null || entry.z() == null) {
+            tally.missing.add(entry);
+            return;
+        }
+
+        World world = Bukkit.getWorld(entry.world());
+        if (world == null) {
+            tally.missing.add(entry);
+            return;
         }
 
+        Location location = new Location(world, entry.x(), entry.y(), entry.z());
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        if (!world.isChunkLoaded(chunkX, chunkZ)) {
+            tally.unloaded.add(entry);
+            return;
+        }
+
+        if (world.getBlockAt(location).getType() == org.bukkit.Material.AMETHYST_CLUSTER) {
+            tally.confirmed++;
+        } else {
+            tally.missing.add(entry);
+        }
+    }
+
+    private Map<UUID, List<String>> collectMintedContexts() {
         Map<UUID, List<String>> contexts = new HashMap<>();
 
         for (Player player : Bukkit.getOnlinePlayers()) {
@@ -207,20 +253,7 @@ public class CrystalAuditCommand implements CommandExecutor {
             }
         }
 
-        try {
-            for (MintLedger.OfflineHolding holding : ledger.listOfflineHoldings()) {
-                String playerName = holding.playerName();
-                UUID playerUuid = holding.playerUuid();
-                String identifier = playerName != null ? playerName : (playerUuid == null ? "Unknown player" : playerUuid.toString());
-                String details = holding.details();
-                String context = "Offline player " + identifier + (details == null || details.isEmpty() ? "" : " - " + details);
-                contexts.computeIfAbsent(holding.crystalUuid(), key -> new ArrayList<>()).add(context);
-            }
-        } catch (MintLedger.LedgerException exception) {
-            return AuditReport.failure("Unable to read offline crystal holdings: " + exception.getMessage());
-        }
-
-        return AuditReport.success(confirmedActive, missingActive, unloadedActive, contexts);
+        return contexts;
     }
 
     private void inspectContents(Map<UUID, List<String>> contexts, ItemStack[] contents, Function<Integer, String> contextFactory) {
@@ -251,8 +284,6 @@ public class CrystalAuditCommand implements CommandExecutor {
     private void sendReport(CommandSender sender, AuditContext context) {
         MintLedger.SupplySnapshot snapshot = context.snapshot();
         AuditReport report = context.report();
-        Map<UUID, MintLedger.LedgerEntry> heldMap = context.heldMap();
-        Set<UUID> missingHeld = context.missingHeld();
         Map<UUID, String> unexpectedStatuses = context.unexpectedStatuses();
         sender.sendMessage(ChatColor.GOLD + "Ledger totals: "
                 + ChatColor.WHITE + "active=" + snapshot.active()
@@ -287,18 +318,17 @@ public class CrystalAuditCommand implements CommandExecutor {
 
         int heldLocated = report.mintedContexts().size();
         sender.sendMessage(ChatColor.GOLD + "Held crystals: "
-                + ChatColor.WHITE + heldMap.size() + " in ledger"
+                + ChatColor.WHITE + context.heldCount() + " in ledger"
                 + ChatColor.GRAY + ", " + heldLocated + " located in loaded inventories/drops"
-                + ChatColor.GRAY + ", " + missingHeld.size() + " unaccounted");
+                + ChatColor.GRAY + ", " + context.missingHeldCount() + " unaccounted");
 
-        if (!missingHeld.isEmpty()) {
+        if (context.missingHeldCount() > 0) {
             sender.sendMessage(ChatColor.RED + "Unaccounted held entries (may be offline or in unloaded chunks):");
-            missingHeld.stream().limit(MAX_DETAILS).forEach(uuid -> {
-                MintLedger.LedgerEntry entry = heldMap.get(uuid);
-                sender.sendMessage(ChatColor.RED + " - " + uuid + formatHeldDetails(entry));
-            });
-            if (missingHeld.size() > MAX_DETAILS) {
-                sender.sendMessage(ChatColor.RED + " - ... " + (missingHeld.size() - MAX_DETAILS) + " more");
+            for (MintLedger.LedgerEntry entry : context.missingHeldSamples()) {
+                sender.sendMessage(ChatColor.RED + " - " + entry.uuid() + formatHeldDetails(entry));
+            }
+            if (context.missingHeldCount() > MAX_DETAILS) {
+                sender.sendMessage(ChatColor.RED + " - ... " + (context.missingHeldCount() - MAX_DETAILS) + " more");
             }
         }
 
@@ -321,6 +351,31 @@ public class CrystalAuditCommand implements CommandExecutor {
             sender.sendMessage(ChatColor.YELLOW + "Run /crystalaudit fix unexpected to move these crystals back to HELD status.");
         }
 
+        WriteQueueMetrics writes = ledger.getWriteQueueMetrics();
+        sender.sendMessage(ChatColor.GOLD + "Ledger writer: "
+                + ChatColor.WHITE + writes.queueDepth() + "/" + writes.queueCapacity() + " queued"
+                + ChatColor.GRAY + " (peak " + writes.peakQueueDepth() + "), "
+                + writes.writesCommitted() + " writes in " + writes.batchesCommitted() + " batches"
+                + String.format(" (avg %.1f)", writes.averageBatchSize())
+                + ", " + writes.writesFailed() + " failed, last commit " + writes.lastCommitMicros() + "us");
+
+        CacheMetrics cache = ledger.getEntryCacheMetrics();
+        sender.sendMessage(ChatColor.GOLD + "Entry cache: "
+                + ChatColor.WHITE + cache.size() + "/" + cache.capacity() + " cached"
+                + ChatColor.GRAY + ", " + cache.hits() + " hits, " + cache.misses() + " misses"
+                + String.format(" (%.1f%%)", cache.hitRate() * 100.0D)
+                + ", " + cache.evictions() + " evicted");
+
+        List<LatencySnapshot> timings = ledger.getStatementTimings();
+        if (!timings.isEmpty()) {
+            sender.sendMessage(ChatColor.GOLD + "Ledger statements (most total time first):");
+            timings.stream().limit(MAX_TIMINGS).forEach(timing -> sender.sendMessage(ChatColor.GRAY + " - "
+                    + ChatColor.WHITE + timing.operation() + ChatColor.GRAY + ": " + timing.count() + " runs"
+                    + String.format(", mean %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    timing.meanMicros() / 1000.0D, timing.p95Micros() / 1000.0D,
+                    timing.p99Micros() / 1000.0D, timing.maxMicros() / 1000.0D)));
+        }
+
         sender.sendMessage(ChatColor.GRAY + "Audit complete. Online players, offline inventories, dropped items, and loaded containers were inspected.");
     }
 
@@ -339,19 +394,26 @@ public class CrystalAuditCommand implements CommandExecutor {
             return;
         }
 
+        Map<UUID, String> details = new LinkedHashMap<>();
+        for (MintLedger.LedgerEntry entry : missing) {
+            details.put(entry.uuid(), "Audit fix missing active - last known " + formatLedgerLocation(entry));
+        }
+
         int fixed = 0;
         List<String> failures = new ArrayList<>();
-        for (MintLedger.LedgerEntry entry : missing) {
-            String details = "Audit fix missing active - last known " + formatLedgerLocation(entry);
-            try {
-                boolean updated = ledger.markLostWithEvent(entry.uuid(), null, MintLedger.EVENT_AUDIT_FIX, details);
-                if (updated) {
+        try {
+            Map<UUID, MintLedger.TransitionResult> results =
+                    ledger.markLostAll(details.keySet(), MintLedger.EVENT_AUDIT_FIX, details::get);
+            for (Map.Entry<UUID, MintLedger.TransitionResult> result : results.entrySet()) {
+                if (result.getValue().updated()) {
                     fixed++;
                 } else {
-                    failures.add(entry.uuid() + " (no status change)");
+                    failures.add(result.getKey() + " (no status change)");
                 }
-            } catch (MintLedger.LedgerException exception) {
-                failures.add(entry.uuid() + " (" + exception.getMessage() + ")");
+            }
+        } catch (MintLedger.LedgerException exception) {
+            for (UUID uuid : details.keySet()) {
+                failures.add(uuid + " (" + exception.getMessage() + ")");
             }
         }
 
@@ -382,15 +444,17 @@ public class CrystalAuditCommand implements CommandExecutor {
 
         int fixed = 0;
         List<String> failures = new ArrayList<>();
-        for (UUID uuid : unexpectedStatuses.keySet()) {
-            try {
-                boolean updated = ledger.markHeld(uuid);
-                if (updated) {
+        try {
+            Map<UUID, MintLedger.TransitionResult> results = ledger.markHeldAll(unexpectedStatuses.keySet());
+            for (Map.Entry<UUID, MintLedger.TransitionResult> result : results.entrySet()) {
+                if (result.getValue().updated()) {
                     fixed++;
                 } else {
-                    failures.add(uuid + " (no status change)");
+                    failures.add(result.getKey() + " (no status change)");
                 }
-            } catch (MintLedger.LedgerException exception) {
+            }
+        } catch (MintLedger.LedgerException exception) {
+            for (UUID uuid : unexpectedStatuses.keySet()) {
                 failures.add(uuid + " (" + exception.getMessage() + ")");
             }
         }
@@ -414,39 +478,40 @@ public class CrystalAuditCommand implements CommandExecutor {
 
     private AuditContext computeAudit() {
         MintLedger.SupplySnapshot snapshot = ledger.countByStatus();
-        List<MintLedger.LedgerEntry> activeEntries = ledger.listEntriesByStatus(MintLedger.STATUS_ACTIVE);
-        List<MintLedger.LedgerEntry> heldEntries = ledger.listEntriesByStatus(MintLedger.STATUS_HELD);
 
-        AuditReport report = runWorldAudit(activeEntries);
+        AuditReport report = runWorldAudit();
         if (!report.success()) {
-            return new AuditContext(snapshot, report, Map.of(), Set.of(), Map.of());
+            return new AuditContext(snapshot, report, 0, 0, List.of(), Map.of());
         }
 
-        Map<UUID, MintLedger.LedgerEntry> heldMap = new HashMap<>();
-        for (MintLedger.LedgerEntry entry : heldEntries) {
-            heldMap.put(entry.uuid(), entry);
-        }
-
-        Set<UUID> expectedHeld = new HashSet<>(heldMap.keySet());
-        Set<UUID> locatedHeld = new HashSet<>(report.mintedContexts().keySet());
-
-        Set<UUID> missingHeld = new HashSet<>(expectedHeld);
-        missingHeld.removeAll(locatedHeld);
-
-        Set<UUID> unexpectedHeld = new HashSet<>(locatedHeld);
-        unexpectedHeld.removeAll(expectedHeld);
+        // Every located crystal starts out unexpected and is struck off as its HELD entry streams by.
+        Set<UUID> unexpectedHeld = new HashSet<>(report.mintedContexts().keySet());
+        int[] heldCounts = new int[2];
+        List<MintLedger.LedgerEntry> missingHeldSamples = new ArrayList<>(MAX_DETAILS);
+        ledger.forEachEntryByStatus(entry -> {
+            heldCounts[0]++;
+            if (!unexpectedHeld.remove(entry.uuid())) {
+                heldCounts[1]++;
+                if (missingHeldSamples.size() < MAX_DETAILS) {
+                    missingHeldSamples.add(entry);
+                }
+            }
+        }, MintLedger.STATUS_HELD);
 
         Map<UUID, String> unexpectedStatuses = new HashMap<>();
-        for (UUID uuid : unexpectedHeld) {
-            try {
-                Optional<MintLedger.LedgerEntry> entryOptional = ledger.findByUuid(uuid);
-                unexpectedStatuses.put(uuid, entryOptional.map(MintLedger.LedgerEntry::status).orElse("UNKNOWN"));
-            } catch (MintLedger.LedgerException exception) {
+        try {
+            Map<UUID, MintLedger.LedgerEntry> entries = ledger.findByUuids(unexpectedHeld);
+            for (UUID uuid : unexpectedHeld) {
+                MintLedger.LedgerEntry entry = entries.get(uuid);
+                unexpectedStatuses.put(uuid, entry == null ? "UNKNOWN" : entry.status());
+            }
+        } catch (MintLedger.LedgerException exception) {
+            for (UUID uuid : unexpectedHeld) {
                 unexpectedStatuses.put(uuid, "ERROR: " + exception.getMessage());
             }
         }
 
-        return new AuditContext(snapshot, report, heldMap, missingHeld, unexpectedStatuses);
+        return new AuditContext(snapshot, report, heldCounts[0], heldCounts[1], missingHeldSamples, unexpectedStatuses);
     }
 
     private String formatHeldDetails(MintLedger.LedgerEntry entry) {
@@ -487,9 +552,16 @@ public class CrystalAuditCommand implements CommandExecutor {
 
     private record AuditContext(MintLedger.SupplySnapshot snapshot,
                                 AuditReport report,
-                                Map<UUID, MintLedger.LedgerEntry> heldMap,
-                                Set<UUID> missingHeld,
+                                int heldCount,
+                                int missingHeldCount,
+                                List<MintLedger.LedgerEntry> missingHeldSamples,
                                 Map<UUID, String> unexpectedStatuses) {
     }
+
+    private static final class ActiveTally {
+        private int confirmed;
+        private final List<MintLedger.LedgerEntry> missing = new ArrayList<>();
+        private final List<MintLedger.LedgerEntry> unloaded = new ArrayList<>();
+    }
 }
 
@@ -0,0 +1,41 @@
+package dev.crystalmath.amethyst.commands;
+
+import dev.crystalmath.amethyst.MintLedger;
+import org.bukkit.Bukkit;
+import org.bukkit.ChatColor;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+import org.bukkit.plugin.java.JavaPlugin;
+
+public class LedgerBackupCommand implements CommandExecutor {
+    private final JavaPlugin plugin;
+    private final MintLedger ledger;
+
+    public LedgerBackupCommand(JavaPlugin plugin, MintLedger ledger) {
+        this.plugin = plugin;
+        this.ledger = ledger;
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        sender.sendMessage(ChatColor.YELLOW + "Starting ledger backup...");
+
+        try {
+            ledger.backupAsync().whenComplete((result, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    sender.sendMessage(ChatColor.RED + "Ledger backup failed: " + error.getMessage());
+                    return;
+                }
+
+                sender.sendMessage(ChatColor.GREEN + "Ledger backed up to " + ChatColor.WHITE + result.file().getName()
+                        + ChatColor.GRAY + " (" + result.databaseBytes() / 1024L + " KiB, "
+                        + result.compressedBytes() / 1024L + " KiB compressed, " + result.elapsedMillis() + " ms"
+                        + (result.pruned() > 0 ? ", " + result.pruned() + " old backups removed" : "") + ")");
+            }));
+        } catch (MintLedger.LedgerException exception) {
+            sender.sendMessage(ChatColor.RED + "Ledger backup failed: " + exception.getMessage());
+        }
+        return true;
+    }
+}
@@ -14,8 +14,11 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 public class RedeemAllCommand implements CommandExecutor {
@@ -69,35 +72,39 @@ public class RedeemAllCommand implements CommandExecutor {
         int redeemedCount = 0;
         List<String> failureMessages = new ArrayList<>();
 
+        List<UUID> uuids = new ArrayList<>(requests.size());
         for (RedeemRequest request : requests) {
-            Optional<MintLedger.LedgerEntry> entryOptional;
-            try {
-                entryOptional = ledger.findByUuid(request.uuid());
-            } catch (MintLedger.LedgerException exception) {
-                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - ledger access error");
-                continue;
+            uuids.add(request.uuid());
+        }
+
+        Map<UUID, MintLedger.TransitionResult> results;
+        try {
+            results = ledger.markRedeemedAll(uuids, MintLedger.EVENT_REDEEMED, null);
+        } catch (MintLedger.LedgerException exception) {
+            results = Map.of();
+            for (RedeemRequest request : requests) {
+                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - ledger update failed");
             }
+        }
 
-            if (entryOptional.isEmpty()) {
-                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - entry not found");
+        Set<UUID> credited = new HashSet<>();
+        for (RedeemRequest request : requests) {
+            MintLedger.TransitionResult result = results.get(request.uuid());
+            if (result == null) {
                 continue;
             }
 
-            MintLedger.LedgerEntry entry = entryOptional.get();
-            if (!entry.isHeld()) {
-                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - status " + entry.status());
+            if (result.outcome() == MintLedger.TransitionOutcome.NOT_FOUND) {
+                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - entry not found");
                 continue;
             }
 
-            boolean redeemed;
-            try {
-                redeemed = ledger.markRedeemed(request.uuid());
-            } catch (MintLedger.LedgerException exception) {
-                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - ledger update failed");
+            if (!result.updated()) {
+                failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - status " + result.previousStatus());
                 continue;
             }
 
-            if (!redeemed) {
+            if (!credited.add(request.uuid())) {
                 failureMessages.add(ChatColor.LIGHT_PURPLE + request.uuid().toString() + ChatColor.GRAY + " - already processed");
                 continue;
             }
@@ -108,36 +108,19 @@ public class RedeemCommand implements CommandExecutor {
         String detailString = formatDetails(player.getName(), beaconOwnerName, claim, tier);
 
         BukkitScheduler scheduler = Bukkit.getScheduler();
-        scheduler.runTaskAsynchronously(plugin, () -> {
-            Optional<MintLedger.LedgerEntry> entryOptional;
-            try {
-                entryOptional = ledger.findByUuid(uuid);
-            } catch (MintLedger.LedgerException exception) {
-                scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "Unable to access the ledger. Check the server logs for details."));
+        ledger.redeemAsync(uuid, MintLedger.EVENT_BEACON_REDEEM, detailString).whenComplete((result, error) -> {
+            if (error != null) {
+                scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "Failed to update the ledger. Check the server logs for details."));
                 return;
             }
 
-            if (entryOptional.isEmpty()) {
+            if (result.outcome() == MintLedger.TransitionOutcome.NOT_FOUND) {
                 scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "No ledger entry was found for this crystal."));
                 return;
             }
 
-            MintLedger.LedgerEntry entry = entryOptional.get();
-            if (!entry.isHeld()) {
-                scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "This crystal is not in a redeemable state (current status: " + ChatColor.LIGHT_PURPLE + entry.status() + ChatColor.RED + ")."));
-                return;
-            }
-
-            boolean redeemed;
-            try {
-                redeemed = ledger.markRedeemed(uuid, MintLedger.EVENT_BEACON_REDEEM, detailString);
-            } catch (MintLedger.LedgerException exception) {
-                scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "Failed to update the ledger. Check the server logs for details."));
-                return;
-            }
-
-            if (!redeemed) {
-                scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "This crystal could not be redeemed. It may have already been processed."));
+            if (!result.updated()) {
+                scheduler.runTask(plugin, () -> player.sendMessage(ChatColor.RED + "This crystal is not in a redeemable state (current status: " + ChatColor.LIGHT_PURPLE + result.previousStatus() + ChatColor.RED + ")."));
                 return;
             }
 
@@ -1,6 +1,8 @@
 package dev.crystalmath.amethyst.commands;
 
 import dev.crystalmath.amethyst.MintLedger;
+import dev.crystalmath.amethyst.ledger.EventReplay;
+import dev.crystalmath.amethyst.ledger.SupplyHistory;
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
@@ -9,7 +11,17 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitScheduler;
 
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
 public class SupplyCommand implements CommandExecutor {
+    private static final String ADMIN_PERMISSION = "amethystcontrol.supply.admin";
+    private static final long DEFAULT_HISTORY_RANGE_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final int SPARKLINE_WIDTH = 40;
+    private static final String SPARKLINE_BLOCKS = "\u2581\u2582\u2583\u2584\u2585\u2586\u2587\u2588";
+
     private final JavaPlugin plugin;
     private final MintLedger ledger;
 
@@ -20,25 +32,239 @@ public class SupplyCommand implements CommandExecutor {
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        if (args.length == 0) {
+            showTotals(sender);
+            return true;
+        }
+
+        String sub = args[0].toLowerCase(Locale.ROOT);
+        if (sub.equals("verify") || sub.equals("rebuild") || sub.equals("replay")) {
+            if (!sender.hasPermission(ADMIN_PERMISSION)) {
+                sender.sendMessage(ChatColor.RED + "You do not have permission to maintain the supply counters.");
+                return true;
+            }
+            if (sub.equals("verify")) {
+                verify(sender);
+            } else if (sub.equals("replay")) {
+                replay(sender);
+            } else {
+                rebuild(sender);
+            }
+            return true;
+        }
+
+        if (sub.equals("history")) {
+            history(sender, args.length > 1 ? args[1] : null);
+            return true;
+        }
+
+        showArea(sender, args[0]);
+        return true;
+    }
+
+    private void showTotals(CommandSender sender) {
+        MintLedger.SupplySnapshot snapshot;
+        Map<String, MintLedger.SupplySnapshot> byArea;
+        try {
+            snapshot = ledger.countByStatus();
+            byArea = ledger.countByArea();
+        } catch (MintLedger.LedgerException exception) {
+            sender.sendMessage(ChatColor.RED + "Unable to access the crystal ledger. Check the server logs for details.");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.LIGHT_PURPLE + "Minted crystal supply:");
+        sender.sendMessage(ChatColor.GRAY + "  ACTIVE: " + ChatColor.WHITE + snapshot.active());
+        sender.sendMessage(ChatColor.GRAY + "  HELD: " + ChatColor.WHITE + snapshot.held());
+        sender.sendMessage(ChatColor.GRAY + "  LOST: " + ChatColor.WHITE + snapshot.lost());
+        sender.sendMessage(ChatColor.GRAY + "  REDEEMED: " + ChatColor.WHITE + snapshot.redeemed());
+
+        if (!byArea.isEmpty()) {
+            sender.sendMessage(ChatColor.LIGHT_PURPLE + "By area:");
+            byArea.forEach((area, areaSnapshot) ->
+                    sender.sendMessage(ChatColor.GRAY + "  " + (area == null ? "(none)" : area) + ": " + formatLine(areaSnapshot)));
+        }
+    }
+
+    private void showArea(CommandSender sender, String areaId) {
+        Map<String, MintLedger.SupplySnapshot> byArea;
+        Map<String, MintLedger.SupplySnapshot> byWorld;
+        try {
+            byArea = ledger.countByArea();
+            byWorld = ledger.countByWorld(areaId);
+        } catch (MintLedger.LedgerException exception) {
+            sender.sendMessage(ChatColor.RED + "Unable to access the crystal ledger. Check the server logs for details.");
+            return;
+        }
+
+        MintLedger.SupplySnapshot snapshot = byArea.get(areaId);
+        if (snapshot == null) {
+            sender.sendMessage(ChatColor.RED + "No minted crystals are recorded for area " + areaId + ".");
+            return;
+        }
+
+        sender.sendMessage(ChatColor.LIGHT_PURPLE + "Minted crystal supply for " + ChatColor.AQUA + areaId + ChatColor.LIGHT_PURPLE + ":");
+        sender.sendMessage(ChatColor.GRAY + "  Total: " + formatLine(snapshot));
+        byWorld.forEach((world, worldSnapshot) ->
+                sender.sendMessage(ChatColor.GRAY + "  " + (world == null ? "(unknown world)" : world) + ": " + formatLine(worldSnapshot)));
+    }
+
+    private void history(CommandSender sender, String range) {
+        long rangeSeconds = range == null ? DEFAULT_HISTORY_RANGE_SECONDS : parseRange(range);
+        if (rangeSeconds <= 0) {
+            sender.sendMessage(ChatColor.RED + "Usage: /supply history [range], e.g. 6h, 7d or 30m.");
+            return;
+        }
+
         BukkitScheduler scheduler = Bukkit.getScheduler();
+        scheduler.runTaskAsynchronously(plugin, () -> {
+            MintLedger.SupplyTrend trend;
+            try {
+                trend = ledger.supplyHistory(rangeSeconds);
+            } catch (MintLedger.LedgerException exception) {
+                scheduler.runTask(plugin, () -> sender.sendMessage(ChatColor.RED + "Unable to access the crystal ledger. Check the server logs for details."));
+                return;
+            }
+
+            scheduler.runTask(plugin, () -> showTrend(sender, range == null ? "24h" : range, trend));
+        });
+    }
+
+    private void showTrend(CommandSender sender, String range, MintLedger.SupplyTrend trend) {
+        List<SupplyHistory.Point> points = trend.points();
+        if (points.isEmpty()) {
+            sender.sendMessage(ChatColor.RED + "No supply history has been recorded for the last " + range + ".");
+            return;
+        }
+
+        SupplyHistory.Point first = points.get(0);
+        SupplyHistory.Point last = points.get(points.size() - 1);
+        sender.sendMessage(ChatColor.LIGHT_PURPLE + "Minted crystal supply over the last " + range + ChatColor.GRAY
+                + " (" + points.size() + " " + trend.resolution().name().toLowerCase(Locale.ROOT) + " points):");
+        sender.sendMessage(ChatColor.GRAY + "  ACTIVE: " + formatChange(first.active(), last.active()));
+        sender.sendMessage(ChatColor.GRAY + "  HELD: " + formatChange(first.held(), last.held()));
+        sender.sendMessage(ChatColor.GRAY + "  LOST: " + formatChange(first.lost(), last.lost()));
+        sender.sendMessage(ChatColor.GRAY + "  REDEEMED: " + formatChange(first.redeemed(), last.redeemed()));
+        sender.sendMessage(ChatColor.GRAY + "  Active: " + ChatColor.AQUA + sparkline(points));
+    }
+
+    private static String formatChange(long from, long to) {
+        long change = to - from;
+        ChatColor color = change > 0 ? ChatColor.GREEN : change < 0 ? ChatColor.RED : ChatColor.GRAY;
+        return ChatColor.WHITE + "" + from + ChatColor.GRAY + " -> " + ChatColor.WHITE + to
+                + color + " (" + (change >= 0 ? "+" : "") + change + ")";
+    }
+
+    // One block per column, sampling evenly when there are more points than columns.
+    private static String sparkline(List<SupplyHistory.Point> points) {
+        int width = Math.min(SPARKLINE_WIDTH, points.size());
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (SupplyHistory.Point point : points) {
+            min = Math.min(min, point.active());
+            max = Math.max(max, point.active());
+        }
 
+        StringBuilder line = new StringBuilder(width);
+        int levels = SPARKLINE_BLOCKS.length() - 1;
+        for (int column = 0; column < width; column++) {
+            long value = points.get((int) ((long) column * points.size() / width)).active();
+            int level = max == min ? 0 : (int) ((value - min) * levels / (max - min));
+            line.append(SPARKLINE_BLOCKS.charAt(level));
+        }
+        return line.toString();
+    }
+
+    // Accepts a count followed by m, h or d; anything else yields 0.
+    private static long parseRange(String range) {
+        if (range.length() < 2) {
+            return 0L;
+        }
+
+        TimeUnit unit = switch (Character.toLowerCase(range.charAt(range.length() - 1))) {
+            case 'm' -> TimeUnit.MINUTES;
+            case 'h' -> TimeUnit.HOURS;
+            case 'd' -> TimeUnit.DAYS;
+            default -> null;
+        };
+        if (unit == null) {
+            return 0L;
+        }
+
+        try {
+            return unit.toSeconds(Long.parseLong(range.substring(0, range.length() - 1)));
+        } catch (NumberFormatException exception) {
+            return 0L;
+        }
+    }
+
+    private void verify(CommandSender sender) {
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+        scheduler.runTaskAsynchronously(plugin, () -> {
+            int mismatches;
+            try {
+                mismatches = ledger.verifySupplyCounters();
+            } catch (MintLedger.LedgerException exception) {
+                scheduler.runTask(plugin, () -> sender.sendMessage(ChatColor.RED + "Supply verification failed: " + exception.getMessage()));
+                return;
+            }
+
+            scheduler.runTask(plugin, () -> {
+                if (mismatches == 0) {
+                    sender.sendMessage(ChatColor.GREEN + "Supply counters match the ledger.");
+                } else {
+                    sender.sendMessage(ChatColor.RED + "Supply counters disagree with the ledger in " + mismatches
+                            + " area/world cells. Run /supply rebuild to recompute them.");
+                }
+            });
+        });
+    }
+
+    private void rebuild(CommandSender sender) {
+        BukkitScheduler scheduler = Bukkit.getScheduler();
         scheduler.runTaskAsynchronously(plugin, () -> {
             MintLedger.SupplySnapshot snapshot;
             try {
-                snapshot = ledger.countByStatus();
+                snapshot = ledger.rebuildSupplyCounters();
             } catch (MintLedger.LedgerException exception) {
-                scheduler.runTask(plugin, () -> sender.sendMessage(ChatColor.RED + "Unable to access the crystal ledger. Check the server logs for details."));
+                scheduler.runTask(plugin, () -> sender.sendMessage(ChatColor.RED + "Supply rebuild failed: " + exception.getMessage()));
+                return;
+            }
+
+            scheduler.runTask(plugin, () -> sender.sendMessage(ChatColor.GREEN + "Supply counters rebuilt: " + formatLine(snapshot)));
+        });
+    }
+
+    private void replay(CommandSender sender) {
+        sender.sendMessage(ChatColor.YELLOW + "Replaying the crystal event history...");
+        BukkitScheduler scheduler = Bukkit.getScheduler();
+        scheduler.runTaskAsynchronously(plugin, () -> {
+            List<EventReplay.Report> reports;
+            try {
+                reports = ledger.verifyEventHistory();
+            } catch (MintLedger.LedgerException exception) {
+                scheduler.runTask(plugin, () -> sender.sendMessage(ChatColor.RED + "Event replay failed: " + exception.getMessage()));
                 return;
             }
 
             scheduler.runTask(plugin, () -> {
-                sender.sendMessage(ChatColor.LIGHT_PURPLE + "Minted crystal supply:");
-                sender.sendMessage(ChatColor.GRAY + "  ACTIVE: " + ChatColor.WHITE + snapshot.active());
-                sender.sendMessage(ChatColor.GRAY + "  HELD: " + ChatColor.WHITE + snapshot.held());
-                sender.sendMessage(ChatColor.GRAY + "  LOST: " + ChatColor.WHITE + snapshot.lost());
-                sender.sendMessage(ChatColor.GRAY + "  REDEEMED: " + ChatColor.WHITE + snapshot.redeemed());
+                for (EventReplay.Report report : reports) {
+                    ChatColor color = report.consistent() ? ChatColor.GREEN : ChatColor.RED;
+                    sender.sendMessage(color + report.tier().name() + ChatColor.GRAY + ": " + ChatColor.WHITE + report.crystals()
+                            + ChatColor.GRAY + " crystals, " + ChatColor.WHITE + report.events() + ChatColor.GRAY + " events, "
+                            + color + report.mismatches() + ChatColor.GRAY + " mismatches");
+                    for (EventReplay.Mismatch mismatch : report.samples()) {
+                        sender.sendMessage(ChatColor.GRAY + "  " + mismatch.crystal() + " " + mismatch.kind());
+                    }
+                }
             });
         });
-        return true;
+    }
+
+    private String formatLine(MintLedger.SupplySnapshot snapshot) {
+        return ChatColor.WHITE + "" + snapshot.active() + ChatColor.GRAY + " active, "
+                + ChatColor.WHITE + snapshot.held() + ChatColor.GRAY + " held, "
+                + ChatColor.WHITE + snapshot.lost() + ChatColor.GRAY + " lost, "
+                + ChatColor.WHITE + snapshot.redeemed() + ChatColor.GRAY + " redeemed";
     }
 }
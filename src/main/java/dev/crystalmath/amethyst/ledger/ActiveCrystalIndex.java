@@ -0,0 +1,293 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Heap index of ACTIVE crystals keyed by world and block position.
+ */
+public final class ActiveCrystalIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_AREA = -1;
+
+    private final Map<String, Integer> worldIds = new HashMap<>();
+    private final Map<String, Integer> areaIds = new HashMap<>();
+    private final List<String> areaNames = new ArrayList<>();
+
+    // Forward table: position -> crystal.
+    private int[] keyWorlds;
+    private long[] keyPositions;
+    private long[] valueMost;
+    private long[] valueLeast;
+    private int[] valueAreas;
+    private boolean[] used;
+    private int size;
+
+    // Reverse table: crystal -> position.
+    private long[] reverseMost;
+    private long[] reverseLeast;
+    private int[] reverseWorlds;
+    private long[] reversePositions;
+    private boolean[] reverseUsed;
+    private int reverseSize;
+
+    public ActiveCrystalIndex() {
+        allocateForward(INITIAL_CAPACITY);
+        allocateReverse(INITIAL_CAPACITY);
+    }
+
+    // Same layout as the server: 26 bits each for x and z, 12 for y.
+    public static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | ((long) y & 0xFFFL);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        allocateForward(INITIAL_CAPACITY);
+        allocateReverse(INITIAL_CAPACITY);
+        size = 0;
+        reverseSize = 0;
+    }
+
+    // Returns the crystal displaced from the same position, if any.
+    public synchronized UUID put(UUID uuid, String areaId, String world, int x, int y, int z) {
+        int worldId = internWorld(world);
+        long position = pack(x, y, z);
+        int areaIndex = areaId == null ? NO_AREA : internArea(areaId);
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+
+        removeCrystal(most, least);
+
+        if ((size + 1) * 4 >= used.length * 3) {
+            resizeForward(used.length * 2);
+        }
+
+        UUID displaced = null;
+        int slot = forwardSlot(worldId, position);
+        if (used[slot]) {
+            displaced = new UUID(valueMost[slot], valueLeast[slot]);
+            int displacedReverse = reverseSlot(valueMost[slot], valueLeast[slot]);
+            if (reverseUsed[displacedReverse]) {
+                deleteReverse(displacedReverse);
+            }
+        } else {
+            used[slot] = true;
+            keyWorlds[slot] = worldId;
+            keyPositions[slot] = position;
+            size++;
+        }
+        valueMost[slot] = most;
+        valueLeast[slot] = least;
+        valueAreas[slot] = areaIndex;
+
+        insertReverse(most, least, worldId, position);
+        return displaced;
+    }
+
+    public synchronized boolean remove(UUID uuid) {
+        return removeCrystal(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public synchronized Hit find(String world, int x, int y, int z) {
+        Integer worldId = worldIds.get(world);
+        if (worldId == null) {
+            return null;
+        }
+
+        int slot = forwardSlot(worldId, pack(x, y, z));
+        if (!used[slot]) {
+            return null;
+        }
+
+        int area = valueAreas[slot];
+        return new Hit(new UUID(valueMost[slot], valueLeast[slot]), area == NO_AREA ? null : areaNames.get(area));
+    }
+
+    public record Hit(UUID uuid, String areaId) {
+    }
+
+    private int internWorld(String world) {
+        Integer id = worldIds.get(world);
+        if (id == null) {
+            id = worldIds.size();
+            worldIds.put(world, id);
+        }
+        return id;
+    }
+
+    private int internArea(String areaId) {
+        Integer id = areaIds.get(areaId);
+        if (id == null) {
+            id = areaNames.size();
+            areaNames.add(areaId);
+            areaIds.put(areaId, id);
+        }
+        return id;
+    }
+
+    private boolean removeCrystal(long most, long least) {
+        int reverse = reverseSlot(most, least);
+        if (!reverseUsed[reverse]) {
+            return false;
+        }
+
+        int worldId = reverseWorlds[reverse];
+        long position = reversePositions[reverse];
+        deleteReverse(reverse);
+
+        int slot = forwardSlot(worldId, position);
+        if (used[slot] && valueMost[slot] == most && valueLeast[slot] == least) {
+            deleteForward(slot);
+        }
+        return true;
+    }
+
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+
+    private int forwardSlot(int worldId, long position) {
+        int mask = used.length - 1;
+        int slot = mix(position * 31L + worldId) & mask;
+        while (used[slot] && (keyWorlds[slot] != worldId || keyPositions[slot] != position)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int reverseSlot(long most, long least) {
+        int mask = reverseUsed.length - 1;
+        int slot = mix(most ^ least) & mask;
+        while (reverseUsed[slot] && (reverseMost[slot] != most || reverseLeast[slot] != least)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insertReverse(long most, long least, int worldId, long position) {
+        if ((reverseSize + 1) * 4 >= reverseUsed.length * 3) {
+            resizeReverse(reverseUsed.length * 2);
+        }
+
+        int slot = reverseSlot(most, least);
+        if (!reverseUsed[slot]) {
+            reverseUsed[slot] = true;
+            reverseMost[slot] = most;
+            reverseLeast[slot] = least;
+            reverseSize++;
+        }
+        reverseWorlds[slot] = worldId;
+        reversePositions[slot] = position;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones.
+    private void deleteForward(int slot) {
+        int mask = used.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (used[next]) {
+            int home = mix(keyPositions[next] * 31L + keyWorlds[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keyWorlds[hole] = keyWorlds[next];
+                keyPositions[hole] = keyPositions[next];
+                valueMost[hole] = valueMost[next];
+                valueLeast[hole] = valueLeast[next];
+                valueAreas[hole] = valueAreas[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[hole] = false;
+        size--;
+    }
+
+    private void deleteReverse(int slot) {
+        int mask = reverseUsed.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (reverseUsed[next]) {
+            int home = mix(reverseMost[next] ^ reverseLeast[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                reverseMost[hole] = reverseMost[next];
+                reverseLeast[hole] = reverseLeast[next];
+                reverseWorlds[hole] = reverseWorlds[next];
+                reversePositions[hole] = reversePositions[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        reverseUsed[hole] = false;
+        reverseSize--;
+    }
+
+    private void allocateForward(int capacity) {
+        keyWorlds = new int[capacity];
+        keyPositions = new long[capacity];
+        valueMost = new long[capacity];
+        valueLeast = new long[capacity];
+        valueAreas = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void allocateReverse(int capacity) {
+        reverseMost = new long[capacity];
+        reverseLeast = new long[capacity];
+        reverseWorlds = new int[capacity];
+        reversePositions = new long[capacity];
+        reverseUsed = new boolean[capacity];
+    }
+
+    private void resizeForward(int capacity) {
+        int[] oldWorlds = keyWorlds;
+        long[] oldPositions = keyPositions;
+        long[] oldMost = valueMost;
+        long[] oldLeast = valueLeast;
+        int[] oldAreas = valueAreas;
+        boolean[] oldUsed = used;
+
+        allocateForward(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = forwardSlot(oldWorlds[i], oldPositions[i]);
+                used[slot] = true;
+                keyWorlds[slot] = oldWorlds[i];
+                keyPositions[slot] = oldPositions[i];
+                valueMost[slot] = oldMost[i];
+                valueLeast[slot] = oldLeast[i];
+                valueAreas[slot] = oldAreas[i];
+            }
+        }
+    }
+
+    private void resizeReverse(int capacity) {
+        long[] oldMost = reverseMost;
+        long[] oldLeast = reverseLeast;
+        int[] oldWorlds = reverseWorlds;
+        long[] oldPositions = reversePositions;
+        boolean[] oldUsed = reverseUsed;
+
+        allocateReverse(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                int slot = reverseSlot(oldMost[i], oldLeast[i]);
+                reverseUsed[slot] = true;
+                reverseMost[slot] = oldMost[i];
+                reverseLeast[slot] = oldLeast[i];
+                reverseWorlds[slot] = oldWorlds[i];
+                reversePositions[slot] = oldPositions[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package dev.crystalmath.amethyst.ledger;
+
+public record CacheMetrics(int size,
+                           int capacity,
+                           long hits,
+                           long misses,
+                           long evictions) {
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0D : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,328 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Append-only NDJSON feed of committed crystal events, for consumers that must not open the database.
+ */
+final class ChangeFeed implements CommitLog {
+    static final String DIRECTORY = "changefeed";
+    private static final String PREFIX = "changes-";
+    private static final String SUFFIX = ".ndjson";
+    private static final int TAIL_WINDOW = 64 * 1024;
+    private static final String SEQ_PREFIX = "{\"seq\":";
+
+    private final File directory;
+    private final long maxFileBytes;
+    private final int keepFiles;
+    private final long fsyncIntervalNanos;
+    private final Logger logger;
+    private final List<Map<String, Object>> task = new ArrayList<>();
+    private final List<Map<String, Object>> batch = new ArrayList<>();
+    private FileChannel channel;
+    private final StringBuilder encoded = new StringBuilder();
+    private ByteBuffer buffer = ByteBuffer.allocate(TAIL_WINDOW);
+    private long sequence;
+    private long lastSync = System.nanoTime();
+    private boolean dirty;
+
+    ChangeFeed(File directory, LedgerSettings settings, Logger logger) {
+        this.directory = directory;
+        this.maxFileBytes = settings.changeFeedMaxFileMegabytes() * 1024L * 1024L;
+        this.keepFiles = settings.changeFeedKeepFiles();
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.changeFeedFsyncMillis());
+        this.logger = logger;
+    }
+
+    // A line torn by a crash mid-write is cut off first.
+    void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory.getAbsolutePath());
+        }
+
+        File[] files = feedFiles();
+        if (files.length == 0) {
+            openFile(1L);
+            return;
+        }
+
+        File newest = files[files.length - 1];
+        channel = FileChannel.open(newest.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        sequence = firstSequence(newest) - 1L;
+        long size = channel.size();
+        if (size == 0L) {
+            return;
+        }
+
+        int window = (int) Math.min(size, TAIL_WINDOW);
+        ByteBuffer tail = ByteBuffer.allocate(window);
+        while (tail.hasRemaining() && channel.read(tail, size - window + tail.position()) >= 0) {
+            // Keep reading until the window is full.
+        }
+        byte[] bytes = tail.array();
+        int lastNewline = window - 1;
+        while (lastNewline >= 0 && bytes[lastNewline] != '\n') {
+            lastNewline--;
+        }
+        if (lastNewline < 0 && size == window) {
+            logger.warning("Discarding " + size + " bytes of incomplete change feed line in " + newest.getName());
+            channel.truncate(0L);
+            return;
+        }
+        if (lastNewline < 0) {
+            throw new IOException("No complete change feed line in the last " + window + " bytes of " + newest.getName());
+        }
+
+        long validLength = size - window + lastNewline + 1;
+        if (validLength < size) {
+            logger.warning("Discarding " + (size - validLength) + " bytes of incomplete change feed line in " + newest.getName());
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+
+        int lineStart = lastNewline;
+        while (lineStart > 0 && bytes[lineStart - 1] != '\n') {
+            lineStart--;
+        }
+        if (lineStart == 0 && validLength > window) {
+            throw new IOException("Change feed line longer than " + window + " bytes in " + newest.getName());
+        }
+        String line = new String(bytes, lineStart, lastNewline - lineStart, StandardCharsets.UTF_8);
+        long last = sequenceOf(line);
+        if (last < 0L) {
+            throw new IOException("Unreadable change feed line in " + newest.getName());
+        }
+        sequence = last;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    // Must run on the writer thread.
+    void stage(CrystalEvent event, String area, String originWorld, String world) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("crystal", event.crystal().toString());
+        record.put("type", event.eventType());
+        record.put("status", LedgerCodec.statusName(event.status()));
+        record.put("occurred_at", event.occurredAt());
+        putIfPresent(record, "created_at", event.createdAt());
+        putIfPresent(record, "area", area);
+        putIfPresent(record, "origin_world", originWorld);
+        putIfPresent(record, "world", world);
+        putIfPresent(record, "x", event.x());
+        putIfPresent(record, "y", event.y());
+        putIfPresent(record, "z", event.z());
+        putIfPresent(record, "details", event.details());
+        task.add(record);
+    }
+
+    @Override
+    public String name() {
+        return "change feed";
+    }
+
+    @Override
+    public void keepTask() {
+        batch.addAll(task);
+        task.clear();
+    }
+
+    @Override
+    public void discardTask() {
+        task.clear();
+    }
+
+    @Override
+    public void discardBatch() {
+        task.clear();
+        batch.clear();
+    }
+
+    @Override
+    public void commitBatch() throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long committedAt = System.currentTimeMillis();
+        buffer.clear();
+        for (Map<String, Object> staged : batch) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            record.put("seq", ++sequence);
+            record.put("committed_at", committedAt);
+            record.putAll(staged);
+            encoded.setLength(0);
+            appendRecord(encoded, record);
+            append(encoded.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+        }
+        batch.clear();
+
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        dirty = true;
+
+        if (channel.position() >= maxFileBytes) {
+            rotate();
+        } else {
+            syncIfDue();
+        }
+    }
+
+    @Override
+    public void syncIfDue() throws IOException {
+        if (dirty && System.nanoTime() - lastSync >= fsyncIntervalNanos) {
+            sync();
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        if (channel != null && dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+        lastSync = System.nanoTime();
+    }
+
+    void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            sync();
+            channel.close();
+        } catch (IOException exception) {
+            logger.warning("Failed to close the change feed: " + exception.getMessage());
+        }
+        channel = null;
+    }
+
+    private void append(byte[] line) {
+        if (buffer.remaining() < line.length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + line.length));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        buffer.put(line);
+    }
+
+    private void rotate() throws IOException {
+        sync();
+        channel.close();
+        openFile(sequence + 1L);
+
+        File[] files = feedFiles();
+        for (int i = 0; i < files.length - keepFiles; i++) {
+            if (!files[i].delete()) {
+                logger.warning("Unable to delete old change feed file " + files[i].getName());
+            }
+        }
+    }
+
+    private void openFile(long firstSequence) throws IOException {
+        File file = new File(directory, PREFIX + String.format("%020d", firstSequence) + SUFFIX);
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        sequence = firstSequence - 1L;
+    }
+
+    // Zero-padded names sort in sequence order.
+    private File[] feedFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private static long firstSequence(File file) throws IOException {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException exception) {
+            throw new IOException("Unexpected change feed file name " + name, exception);
+        }
+    }
+
+    private static void putIfPresent(Map<String, Object> record, String key, Object value) {
+        if (value != null) {
+            record.put(key, value);
+        }
+    }
+
+    // Every line starts with its seq field; -1 when it does not.
+    private static long sequenceOf(String line) {
+        int start = SEQ_PREFIX.length();
+        int end = start;
+        while (end < line.length() && Character.isDigit(line.charAt(end))) {
+            end++;
+        }
+        if (!line.startsWith(SEQ_PREFIX) || end == start || end - start > 18) {
+            return -1L;
+        }
+        return Long.parseLong(line, start, end, 10);
+    }
+
+    // Records are flat maps of strings and numbers, so they are encoded here rather than through a
+    // general JSON writer.
+    private static void appendRecord(StringBuilder out, Map<String, Object> record) {
+        out.append('{');
+        boolean first = true;
+        for (Map.Entry<String, Object> field : record.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            appendString(out, field.getKey());
+            out.append(':');
+            Object value = field.getValue();
+            if (value == null) {
+                out.append("null");
+            } else if (value instanceof Number) {
+                out.append(value);
+            } else {
+                appendString(out, value.toString());
+            }
+        }
+        out.append('}');
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,22 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.io.IOException;
+
+/**
+ * A log kept in step with the {@link LedgerWriter}'s transactions.
+ */
+interface CommitLog {
+    String name();
+
+    void keepTask();
+
+    void discardTask();
+
+    void discardBatch();
+
+    void commitBatch() throws IOException;
+
+    void syncIfDue() throws IOException;
+
+    void sync() throws IOException;
+}
@@ -0,0 +1,86 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves LOST and REDEEMED crystals and their events into the archive tables.
+ */
+public final class CrystalArchive {
+    private CrystalArchive() {
+    }
+
+    // Meant to run as one small writer task per call.
+    public static int archiveBatch(Connection connection, long cutoffEpochSecond, long archivedAt, int limit)
+            throws SQLException {
+        List<byte[]> keys = new ArrayList<>(limit);
+        try (PreparedStatement select = connection.prepareStatement("""
+                SELECT uuid
+                FROM crystals
+                WHERE status IN (?, ?) AND updated_at < ?
+                LIMIT ?
+                """)) {
+            select.setInt(1, LedgerCodec.STATUS_LOST);
+            select.setInt(2, LedgerCodec.STATUS_REDEEMED);
+            select.setLong(3, cutoffEpochSecond);
+            select.setInt(4, limit);
+            try (ResultSet resultSet = select.executeQuery()) {
+                while (resultSet.next()) {
+                    keys.add(resultSet.getBytes(1));
+                }
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        String in = "?" + ", ?".repeat(keys.size() - 1);
+        try (PreparedStatement copy = connection.prepareStatement("""
+                INSERT INTO crystals_archive (uuid, area, world, x, y, z, status, created_at, updated_at, origin_world, archived_at)
+                SELECT uuid, area, world, x, y, z, status, created_at, updated_at, origin_world, ?
+                FROM crystals
+                WHERE uuid IN (%s)
+                """.formatted(in))) {
+            copy.setLong(1, archivedAt);
+            bind(copy, 2, keys);
+            copy.executeUpdate();
+        }
+
+        try (PreparedStatement copy = connection.prepareStatement("""
+                INSERT INTO crystal_events_archive (crystal_uuid, event_type, details, occurred_at, status, area,
+                                                    origin_world, world, x, y, z, created_at)
+                SELECT crystal_uuid, event_type, details, occurred_at, status, area,
+                       origin_world, world, x, y, z, created_at
+                FROM crystal_events
+                WHERE crystal_uuid IN (%s)
+                ORDER BY id
+                """.formatted(in))) {
+            bind(copy, 1, keys);
+            copy.executeUpdate();
+        }
+
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM crystal_events WHERE crystal_uuid IN (%s)".formatted(in))) {
+            bind(delete, 1, keys);
+            delete.executeUpdate();
+        }
+
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM crystals WHERE uuid IN (%s)".formatted(in))) {
+            bind(delete, 1, keys);
+            return delete.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, int firstIndex, List<byte[]> keys) throws SQLException {
+        int index = firstIndex;
+        for (byte[] key : keys) {
+            statement.setBytes(index++, key);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One row of {@code crystal_events}; folding a crystal's events in id order reproduces its row.
+ */
+public record CrystalEvent(UUID crystal,
+                           String eventType,
+                           String details,
+                           long occurredAt,
+                           int status,
+                           Integer area,
+                           Integer originWorld,
+                           Integer world,
+                           Integer x,
+                           Integer y,
+                           Integer z,
+                           Long createdAt) {
+    public static final String TYPE_MINTED = "MINTED";
+    public static final String TYPE_BASELINE = "BASELINE";
+
+    private static final int COLUMNS = 12;
+    private static final int MAX_ROWS_PER_INSERT = 500;
+
+    public static CrystalEvent minted(UUID crystal, long now, Integer area, int world, int x, int y, int z) {
+        return new CrystalEvent(crystal, TYPE_MINTED, null, now, LedgerCodec.STATUS_ACTIVE, area, world, world, x, y, z, now);
+    }
+
+    public static CrystalEvent transition(UUID crystal, String eventType, String details, long now, int status,
+                                          Integer world, Integer x, Integer y, Integer z) {
+        return new CrystalEvent(crystal, eventType, details, now, status, null, null, world, x, y, z, null);
+    }
+
+    public boolean isSnapshot() {
+        return createdAt != null;
+    }
+
+    public static void insert(Connection connection, List<CrystalEvent> events) throws SQLException {
+        for (int start = 0; start < events.size(); start += MAX_ROWS_PER_INSERT) {
+            List<CrystalEvent> chunk = events.subList(start, Math.min(start + MAX_ROWS_PER_INSERT, events.size()));
+            String row = "(" + "?, ".repeat(COLUMNS - 1) + "?)";
+            String values = (row + ", ").repeat(chunk.size() - 1) + row;
+
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    INSERT INTO crystal_events (crystal_uuid, event_type, details, occurred_at, status, area,
+                                                origin_world, world, x, y, z, created_at)
+                    VALUES %s
+                    """.formatted(values))) {
+                int index = 1;
+                for (CrystalEvent event : chunk) {
+                    statement.setBytes(index++, LedgerCodec.toBytes(event.crystal()));
+                    statement.setString(index++, event.eventType());
+                    setNullable(statement, index++, event.details(), Types.VARCHAR);
+                    statement.setLong(index++, event.occurredAt());
+                    statement.setInt(index++, event.status());
+                    setNullable(statement, index++, event.area(), Types.INTEGER);
+                    setNullable(statement, index++, event.originWorld(), Types.INTEGER);
+                    setNullable(statement, index++, event.world(), Types.INTEGER);
+                    setNullable(statement, index++, event.x(), Types.INTEGER);
+                    setNullable(statement, index++, event.y(), Types.INTEGER);
+                    setNullable(statement, index++, event.z(), Types.INTEGER);
+                    setNullable(statement, index++, event.createdAt(), Types.INTEGER);
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private static void setNullable(PreparedStatement statement, int index, Object value, int sqlType)
+            throws SQLException {
+        if (value == null) {
+            statement.setNull(index, sqlType);
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mints crystal ids as time-ordered UUIDv7 values, so new rows land at the right edge of the keys.
+ */
+public final class CrystalIds {
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_RFC = 0x8000_0000_0000_0000L;
+    private static final long VARIANT_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    // Last (millisecond << COUNTER_BITS | counter) handed out.
+    private static final AtomicLong LAST_STAMP = new AtomicLong();
+
+    private CrystalIds() {
+    }
+
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long stamp = LAST_STAMP.updateAndGet(last -> Math.max(now, last + 1L));
+
+        long millis = stamp >>> COUNTER_BITS;
+        long counter = stamp & ((1L << COUNTER_BITS) - 1L);
+        long mostSignificant = millis << 16 | VERSION_7 | counter;
+        long leastSignificant = VARIANT_RFC | ThreadLocalRandom.current().nextLong() & VARIANT_MASK;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+}
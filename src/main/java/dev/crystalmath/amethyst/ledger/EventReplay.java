@@ -0,0 +1,305 @@
+package dev.crystalmath.amethyst.ledger;
+
+import org.sqlite.SQLiteConfig;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rebuilds crystal rows by folding {@code crystal_events} and checks them against the live tables.
+ */
+public final class EventReplay {
+    public static final int DEFAULT_SAMPLES = 20;
+    private static final int FETCH_SIZE = 1024;
+    private static final int REBUILD_BATCH = 1000;
+
+    private EventReplay() {
+    }
+
+    public enum Tier {
+        HOT("crystals", "crystal_events"),
+        ARCHIVE("crystals_archive", "crystal_events_archive");
+
+        private final String rows;
+        private final String events;
+
+        Tier(String rows, String events) {
+            this.rows = rows;
+            this.events = events;
+        }
+    }
+
+    public enum MismatchKind {
+        MISSING_HISTORY,
+        ORPHAN_EVENTS,
+        NO_SNAPSHOT,
+        DIFFERENT
+    }
+
+    public record Mismatch(Tier tier, UUID crystal, MismatchKind kind, Image expected, Image actual) {
+        @Override
+        public String toString() {
+            return tier + " " + crystal + " " + kind + ": replayed " + expected + ", stored " + actual;
+        }
+    }
+
+    public record Image(int status, Integer area, Integer originWorld, Integer world, Integer x, Integer y, Integer z,
+                        long createdAt, long updatedAt) {
+    }
+
+    public record Report(Tier tier, long crystals, long events, long legacyEvents, long mismatches,
+                         List<Mismatch> samples) {
+        public boolean consistent() {
+            return mismatches == 0;
+        }
+    }
+
+    public static Report verify(Connection connection, Tier tier, int maxSamples) throws SQLException {
+        long crystals = 0L;
+        long mismatches = 0L;
+        List<Mismatch> samples = new ArrayList<>(maxSamples);
+
+        try (EventCursor events = new EventCursor(connection, tier);
+             PreparedStatement statement = connection.prepareStatement("""
+                     SELECT uuid, status, area, origin_world, world, x, y, z, created_at, updated_at
+                     FROM %s
+                     ORDER BY uuid
+                     """.formatted(tier.rows))) {
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet rows = statement.executeQuery()) {
+                boolean hasRow = rows.next();
+                while (hasRow || events.hasNext()) {
+                    int order = !hasRow ? -1 : !events.hasNext() ? 1 : Arrays.compareUnsigned(events.key(), rows.getBytes(1));
+                    Replayed replayed = order <= 0 ? events.next() : null;
+                    byte[] key = order <= 0 ? replayed.key() : rows.getBytes(1);
+                    Image stored = null;
+                    if (order >= 0) {
+                        stored = image(rows);
+                        crystals++;
+                        hasRow = rows.next();
+                    }
+
+                    MismatchKind kind = compare(replayed, stored);
+                    if (kind != null) {
+                        mismatches++;
+                        if (samples.size() < maxSamples) {
+                            samples.add(new Mismatch(tier, LedgerCodec.fromBytes(key), kind,
+                                    replayed == null ? null : replayed.image(), stored));
+                        }
+                    }
+                }
+            }
+            return new Report(tier, crystals, events.events, events.legacy, mismatches, List.copyOf(samples));
+        }
+    }
+
+    // Crystals whose history does not start with a snapshot are left out.
+    public static long rebuild(Connection source, Tier tier, Connection target) throws SQLException {
+        try (Statement statement = target.createStatement()) {
+            statement.executeUpdate("DROP TABLE IF EXISTS " + tier.rows);
+            statement.executeUpdate("""
+                    CREATE TABLE %s (
+                        uuid BLOB PRIMARY KEY,
+                        area INTEGER,
+                        world INTEGER,
+                        x INTEGER,
+                        y INTEGER,
+                        z INTEGER,
+                        status INTEGER NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        updated_at INTEGER NOT NULL,
+                        origin_world INTEGER
+                    ) WITHOUT ROWID
+                    """.formatted(tier.rows));
+        }
+
+        boolean autoCommit = target.getAutoCommit();
+        target.setAutoCommit(false);
+        long written = 0L;
+        try (EventCursor events = new EventCursor(source, tier);
+             PreparedStatement insert = target.prepareStatement("""
+                     INSERT INTO %s (uuid, area, world, x, y, z, status, created_at, updated_at, origin_world)
+                     VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                     """.formatted(tier.rows))) {
+            while (events.hasNext()) {
+                Replayed replayed = events.next();
+                Image image = replayed.image();
+                if (image == null) {
+                    continue;
+                }
+                insert.setBytes(1, replayed.key());
+                setNullable(insert, 2, image.area());
+                setNullable(insert, 3, image.world());
+                setNullable(insert, 4, image.x());
+                setNullable(insert, 5, image.y());
+                setNullable(insert, 6, image.z());
+                insert.setInt(7, image.status());
+                insert.setLong(8, image.createdAt());
+                insert.setLong(9, image.updatedAt());
+                setNullable(insert, 10, image.originWorld());
+                insert.addBatch();
+                if (++written % REBUILD_BATCH == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+            target.commit();
+        } catch (SQLException exception) {
+            target.rollback();
+            throw exception;
+        } finally {
+            target.setAutoCommit(autoCommit);
+        }
+        return written;
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 2 || !(args[0].equals("verify") || args[0].equals("rebuild") && args.length == 3)) {
+            System.err.println("Usage: EventReplay verify <ledger.db> | rebuild <ledger.db> <out.db>");
+            System.exit(2);
+            return;
+        }
+
+        File ledger = new File(args[1]);
+        if (!ledger.isFile()) {
+            System.err.println("No ledger database at " + ledger.getAbsolutePath());
+            System.exit(2);
+            return;
+        }
+
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        try (Connection source = config.createConnection("jdbc:sqlite:" + ledger.getAbsolutePath())) {
+            if (args[0].equals("verify")) {
+                boolean consistent = true;
+                for (Tier tier : Tier.values()) {
+                    long started = System.nanoTime();
+                    Report report = verify(source, tier, DEFAULT_SAMPLES);
+                    System.out.println(tier + ": " + report.crystals() + " crystals, " + report.events() + " events ("
+                            + report.legacyEvents() + " legacy), " + report.mismatches() + " mismatches in "
+                            + (System.nanoTime() - started) / 1_000_000L + " ms");
+                    report.samples().forEach(mismatch -> System.out.println("  " + mismatch));
+                    consistent &= report.consistent();
+                }
+                System.exit(consistent ? 0 : 1);
+            } else {
+                try (Connection target = new SQLiteConfig().createConnection("jdbc:sqlite:" + new File(args[2]).getAbsolutePath())) {
+                    for (Tier tier : Tier.values()) {
+                        System.out.println(tier + ": rebuilt " + rebuild(source, tier, target) + " crystals");
+                    }
+                }
+            }
+        }
+    }
+
+    private static MismatchKind compare(Replayed replayed, Image stored) {
+        if (replayed == null || replayed.image() == null && !replayed.broken()) {
+            // Only legacy events, or none at all.
+            return stored == null ? null : MismatchKind.MISSING_HISTORY;
+        }
+        if (replayed.broken()) {
+            return MismatchKind.NO_SNAPSHOT;
+        }
+        if (stored == null) {
+            return MismatchKind.ORPHAN_EVENTS;
+        }
+        return replayed.image().equals(stored) ? null : MismatchKind.DIFFERENT;
+    }
+
+    private static Image image(ResultSet rows) throws SQLException {
+        return new Image(rows.getInt(2), integer(rows, 3), integer(rows, 4), integer(rows, 5), integer(rows, 6),
+                integer(rows, 7), integer(rows, 8), rows.getLong(9), rows.getLong(10));
+    }
+
+    private static Integer integer(ResultSet resultSet, int column) throws SQLException {
+        int value = resultSet.getInt(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    private static void setNullable(PreparedStatement statement, int index, Integer value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.INTEGER);
+        } else {
+            statement.setInt(index, value);
+        }
+    }
+
+    // image is null when nothing replayable was found; broken is set when a status event came before any snapshot.
+    private record Replayed(byte[] key, Image image, boolean broken) {
+    }
+
+    private static final class EventCursor implements AutoCloseable {
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private boolean hasNext;
+        private long events;
+        private long legacy;
+
+        EventCursor(Connection connection, Tier tier) throws SQLException {
+            statement = connection.prepareStatement("""
+                    SELECT crystal_uuid, status, area, origin_world, world, x, y, z, created_at, occurred_at
+                    FROM %s
+                    ORDER BY crystal_uuid, id
+                    """.formatted(tier.events));
+            statement.setFetchSize(FETCH_SIZE);
+            resultSet = statement.executeQuery();
+            hasNext = resultSet.next();
+        }
+
+        boolean hasNext() {
+            return hasNext;
+        }
+
+        byte[] key() throws SQLException {
+            return resultSet.getBytes(1);
+        }
+
+        Replayed next() throws SQLException {
+            byte[] key = key();
+            Image image = null;
+            boolean broken = false;
+            do {
+                events++;
+                Integer status = integer(resultSet, 2);
+                if (status == null) {
+                    legacy++;
+                    continue;
+                }
+                long occurredAt = resultSet.getLong(10);
+                Integer world = integer(resultSet, 5);
+                Integer x = integer(resultSet, 6);
+                Integer y = integer(resultSet, 7);
+                Integer z = integer(resultSet, 8);
+                resultSet.getLong(9);
+                if (!resultSet.wasNull()) {
+                    image = new Image(status, integer(resultSet, 3), integer(resultSet, 4), world, x, y, z,
+                            resultSet.getLong(9), occurredAt);
+                } else if (image != null) {
+                    image = new Image(status, image.area(), image.originWorld(), world, x, y, z, image.createdAt(),
+                            occurredAt);
+                } else {
+                    broken = true;
+                }
+            } while ((hasNext = resultSet.next()) && Arrays.equals(key, key()));
+            return new Replayed(key, broken ? null : image, broken);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                resultSet.close();
+            } finally {
+                statement.close();
+            }
+        }
+    }
+}
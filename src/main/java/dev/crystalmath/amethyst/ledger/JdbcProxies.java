@@ -0,0 +1,76 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.TreeMap;
+
+/**
+ * Plumbing shared by the JDBC wrappers that observe statements on their way to SQLite.
+ */
+final class JdbcProxies {
+    private JdbcProxies() {
+    }
+
+    @FunctionalInterface
+    interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    static <T> T proxy(Class<T> type, T target, Handler<T> handler) {
+        InvocationHandler invocation = (proxy, method, args) -> handler.handle(target, method, args);
+        return type.cast(Proxy.newProxyInstance(JdbcProxies.class.getClassLoader(), new Class<?>[]{type}, invocation));
+    }
+
+    static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    static void trackParameter(TreeMap<Integer, Object> parameters, String name, Object[] args) {
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+            parameters.put(index, name.equals("setNull") ? null : normalize(args[1]));
+        } else if (name.equals("clearParameters")) {
+            parameters.clear();
+        }
+    }
+
+    static Object[] snapshot(TreeMap<Integer, Object> parameters) {
+        if (parameters.isEmpty()) {
+            return new Object[0];
+        }
+        Object[] values = new Object[parameters.lastKey()];
+        parameters.forEach((index, value) -> values[index - 1] = value);
+        return values;
+    }
+
+    static boolean isExecute(String name) {
+        return name.equals("execute") || name.equals("executeUpdate") || name.equals("executeLargeUpdate")
+                || name.equals("executeQuery");
+    }
+
+    static boolean isExecuteBatch(String name) {
+        return name.equals("executeBatch") || name.equals("executeLargeBatch");
+    }
+
+    // Values are kept as the storage classes SQLite binds: integers, reals, text and blobs.
+    private static Object normalize(Object value) {
+        if (value instanceof Boolean flag) {
+            return flag ? 1 : 0;
+        }
+        if (value instanceof Short || value instanceof Byte) {
+            return ((Number) value).intValue();
+        }
+        if (value instanceof Float number) {
+            return number.doubleValue();
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.clone();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.invoke;
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.isExecute;
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.isExecuteBatch;
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.proxy;
+
+/**
+ * Wraps the writer connection so every successful write is handed to the {@link LedgerJournal}.
+ */
+final class JournalingConnection {
+    private JournalingConnection() {
+    }
+
+    static Connection wrap(Connection connection, LedgerJournal journal) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return wrapPrepared(statement, (String) args[0], journal);
+            }
+            if (method.getName().equals("createStatement") && result instanceof Statement statement) {
+                return wrapStatement(statement, journal);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement wrapPrepared(PreparedStatement statement, String sql, LedgerJournal journal) {
+        if (!isWrite(sql)) {
+            return statement;
+        }
+
+        TreeMap<Integer, Object> parameters = new TreeMap<>();
+        List<Object[]> batch = new ArrayList<>();
+        return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+            String name = method.getName();
+            JdbcProxies.trackParameter(parameters, name, args);
+            if (name.equals("clearBatch")) {
+                batch.clear();
+            } else if (name.equals("addBatch") && args == null) {
+                batch.add(JdbcProxies.snapshot(parameters));
+            }
+
+            Object result = invoke(target, method, args);
+            if (args == null && isExecute(name)) {
+                journal.record(sql, JdbcProxies.snapshot(parameters));
+            } else if (isExecuteBatch(name)) {
+                for (Object[] values : batch) {
+                    journal.record(sql, values);
+                }
+                batch.clear();
+            }
+            return result;
+        });
+    }
+
+    private static Statement wrapStatement(Statement statement, LedgerJournal journal) {
+        List<String> batch = new ArrayList<>();
+        return proxy(Statement.class, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && isWrite((String) args[0])) {
+                batch.add((String) args[0]);
+            } else if (name.equals("clearBatch")) {
+                batch.clear();
+            }
+
+            Object result = invoke(target, method, args);
+            if (args != null && args.length >= 1 && args[0] instanceof String sql && isWrite(sql) && isExecute(name)) {
+                journal.record(sql, new Object[0]);
+            } else if (isExecuteBatch(name)) {
+                for (String sql : batch) {
+                    journal.record(sql, new Object[0]);
+                }
+                batch.clear();
+            }
+            return result;
+        });
+    }
+
+    private static boolean isWrite(String sql) {
+        String head = sql.stripLeading();
+        int end = 0;
+        while (end < head.length() && Character.isLetter(head.charAt(end))) {
+            end++;
+        }
+        String keyword = head.substring(0, end).toUpperCase(Locale.ROOT);
+        return !keyword.equals("SELECT") && !keyword.equals("VACUUM") && !keyword.equals("EXPLAIN");
+    }
+}
@@ -0,0 +1,59 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ */
+public final class LatencyHistogram {
+    private static final int BUCKETS = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0L);
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0L, micros);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+        buckets[bucket].increment();
+        totalMicros.add(value);
+        maxMicros.accumulate(value);
+    }
+
+    public LatencySnapshot snapshot(String operation) {
+        long[] counts = new long[BUCKETS];
+        long count = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+
+        long max = maxMicros.get();
+        return new LatencySnapshot(operation, count, totalMicros.sum(), max,
+                percentile(counts, count, 0.50D, max), percentile(counts, count, 0.95D, max),
+                percentile(counts, count, 0.99D, max));
+    }
+
+    private static long percentile(long[] counts, long count, double quantile, long max) {
+        if (count == 0L) {
+            return 0L;
+        }
+
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, 1L << i);
+            }
+        }
+        return max;
+    }
+}
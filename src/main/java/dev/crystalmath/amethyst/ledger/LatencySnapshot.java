@@ -0,0 +1,13 @@
+package dev.crystalmath.amethyst.ledger;
+
+public record LatencySnapshot(String operation,
+                              long count,
+                              long totalMicros,
+                              long maxMicros,
+                              long p50Micros,
+                              long p95Micros,
+                              long p99Micros) {
+    public long meanMicros() {
+        return count == 0L ? 0L : totalMicros / count;
+    }
+}
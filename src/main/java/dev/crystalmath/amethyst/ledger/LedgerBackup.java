@@ -0,0 +1,167 @@
+package dev.crystalmath.amethyst.ledger;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Takes gzip-compressed snapshots of the ledger with SQLite's online-backup API.
+ */
+public final class LedgerBackup {
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".db.gz";
+    private static final int BUSY_SLEEP_MILLIS = 10;
+    private static final int BUSY_RETRIES = 500;
+
+    private final File source;
+    private final File directory;
+    private final LedgerSettings settings;
+    private final Logger logger;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "CrystalMath-LedgerBackup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LedgerBackup(File source, File directory, LedgerSettings settings, Logger logger) {
+        this.source = source;
+        this.directory = directory;
+        this.settings = settings;
+        this.logger = logger;
+    }
+
+    public record Result(File file, long databaseBytes, long compressedBytes, long elapsedMillis, int pruned) {
+    }
+
+    public CompletableFuture<Result> start() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A ledger backup is already running"));
+        }
+
+        CompletableFuture<Result> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(run());
+                } catch (SQLException | IOException | RuntimeException exception) {
+                    result.completeExceptionally(exception);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException exception) {
+            running.set(false);
+            result.completeExceptionally(exception);
+        }
+        return result;
+    }
+
+    public void shutdown(long timeoutMillis) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                logger.warning("Ledger backup did not finish before shutdown");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private Result run() throws SQLException, IOException {
+        long started = System.nanoTime();
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create backup folder at " + directory.getAbsolutePath());
+        }
+
+        String stamp = LocalDateTime.now().format(STAMP);
+        File snapshot = new File(directory, PREFIX + stamp + ".db.tmp");
+        File target = new File(directory, PREFIX + stamp + SUFFIX);
+        File partial = new File(directory, PREFIX + stamp + SUFFIX + ".tmp");
+
+        long databaseBytes;
+        try {
+            copyPages(snapshot);
+            databaseBytes = snapshot.length();
+            compress(snapshot, partial);
+            Files.move(partial.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(snapshot.toPath());
+            Files.deleteIfExists(partial.toPath());
+        }
+
+        int pruned = prune();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        return new Result(target, databaseBytes, target.length(), elapsed, pruned);
+    }
+
+    private void copyPages(File snapshot) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setBusyTimeout(settings.busyTimeoutMillis());
+
+        try (Connection connection = config.createConnection("jdbc:sqlite:" + source.getAbsolutePath())) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                // Opens the read transaction the backup steps run inside.
+                statement.executeQuery("SELECT COUNT(*) FROM sqlite_schema").close();
+            }
+
+            int rc = ((SQLiteConnection) connection).getDatabase().backup("main", snapshot.getAbsolutePath(),
+                    (remaining, pageCount) -> { }, BUSY_SLEEP_MILLIS, BUSY_RETRIES, settings.backupPagesPerStep());
+            connection.rollback();
+            if (rc != 0) {
+                throw new SQLException("Online backup failed with SQLite result code " + rc);
+            }
+        }
+    }
+
+    private static void compress(File snapshot, File target) throws IOException {
+        try (InputStream input = Files.newInputStream(snapshot.toPath());
+             OutputStream output = new GZIPOutputStream(Files.newOutputStream(target.toPath()), 64 * 1024)) {
+            input.transferTo(output);
+        }
+    }
+
+    // Snapshot names sort chronologically, so everything past the newest backup.keep files goes.
+    private int prune() {
+        File[] backups = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (backups == null || backups.length <= settings.backupKeep()) {
+            return 0;
+        }
+
+        Arrays.sort(backups, Comparator.comparing(File::getName).reversed());
+        int pruned = 0;
+        for (int i = settings.backupKeep(); i < backups.length; i++) {
+            if (backups[i].delete()) {
+                pruned++;
+            } else {
+                logger.warning("Unable to delete old ledger backup " + backups[i].getName());
+            }
+        }
+        return pruned;
+    }
+}
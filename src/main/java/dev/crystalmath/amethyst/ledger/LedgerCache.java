@@ -0,0 +1,78 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded LRU read-through cache in front of ledger lookups.
+ */
+public final class LedgerCache<K, V> {
+    private final int capacity;
+    private final long expireAfterNanos;
+    private final LinkedHashMap<K, Cached<V>> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LedgerCache(int capacity, long expireAfterSeconds) {
+        this.capacity = capacity;
+        this.expireAfterNanos = TimeUnit.SECONDS.toNanos(expireAfterSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Cached<V>> eldest) {
+                if (size() > LedgerCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Cached<V> cached = entries.get(key);
+        if (cached == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - cached.loadedAt() > expireAfterNanos) {
+            entries.remove(key);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return cached.value();
+    }
+
+    public synchronized long generation() {
+        return generation;
+    }
+
+    // A read that raced an invalidation may be stale, so it is not cached.
+    public synchronized void put(K key, V value, long readGeneration) {
+        if (capacity <= 0 || readGeneration != generation) {
+            return;
+        }
+        entries.put(key, new Cached<>(value, System.nanoTime()));
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized CacheMetrics metrics() {
+        return new CacheMetrics(entries.size(), capacity, hits, misses, evictions);
+    }
+
+    private record Cached<V>(V value, long loadedAt) {
+    }
+}
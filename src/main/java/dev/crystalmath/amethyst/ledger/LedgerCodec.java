@@ -0,0 +1,54 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Column encodings of the compact ledger schema: UUIDs as 16-byte BLOBs, statuses as small codes.
+ */
+public final class LedgerCodec {
+    public static final int STATUS_ACTIVE = 1;
+    public static final int STATUS_HELD = 2;
+    public static final int STATUS_LOST = 3;
+    public static final int STATUS_REDEEMED = 4;
+
+    private static final String[] STATUS_NAMES = {null, "ACTIVE", "HELD", "LOST", "REDEEMED"};
+
+    private LedgerCodec() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            throw new IllegalArgumentException("Ledger UUIDs are stored as 16 bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    public static int statusCode(String status) {
+        if (status != null) {
+            String normalized = status.toUpperCase(Locale.ROOT);
+            for (int code = 1; code < STATUS_NAMES.length; code++) {
+                if (STATUS_NAMES[code].equals(normalized)) {
+                    return code;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unknown crystal status: " + status);
+    }
+
+    public static String statusName(int code) {
+        if (code <= 0 || code >= STATUS_NAMES.length) {
+            return null;
+        }
+        return STATUS_NAMES[code];
+    }
+}
@@ -0,0 +1,372 @@
+package dev.crystalmath.amethyst.ledger;
+
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Owns the SQLite connections behind the ledger: one group-committing writer and a pool of readers.
+ */
+public final class LedgerDatabase {
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000L;
+    private static final String JOURNAL_FILE = "ledger.journal";
+    private static final String SLOW_LOG_FILE = "ledger-slow.log";
+
+    private final File file;
+    private final LedgerSettings settings;
+    private final Logger logger;
+    private final List<Connection> readerConnections = new ArrayList<>();
+    private BlockingQueue<Connection> idleReaders;
+    private LedgerWriter ledgerWriter;
+    private Connection writeConnection;
+    private LedgerJournal journal;
+    private ChangeFeed changeFeed;
+    private SlowStatementLog slowLog;
+    private StatementTimings timings;
+
+    public LedgerDatabase(File file, LedgerSettings settings, Logger logger) {
+        this.file = file;
+        this.settings = settings;
+        this.logger = logger;
+    }
+
+    public LedgerSettings settings() {
+        return settings;
+    }
+
+    /**
+     * Opens the writer connection and starts the writer thread; readers open in {@link #openReaders()}.
+     */
+    public void open() throws SQLException {
+        if (settings.slowStatementMillis() > 0) {
+            slowLog = new SlowStatementLog(new File(file.getParentFile(), SLOW_LOG_FILE),
+                    settings.slowLogMaxKilobytes() * 1024L, settings.slowLogKeep(), this::openReadConnection, logger);
+        }
+        timings = new StatementTimings(settings.slowStatementMillis(), slowLog);
+        if (settings.changeFeedEnabled()) {
+            changeFeed = new ChangeFeed(new File(file.getParentFile(), ChangeFeed.DIRECTORY), settings, logger);
+            try {
+                changeFeed.open();
+            } catch (IOException exception) {
+                changeFeed.close();
+                changeFeed = null;
+                throw new SQLException("Unable to open the ledger change feed", exception);
+            }
+        }
+
+        if (settings.memoryMode()) {
+            openMemory();
+            return;
+        }
+
+        SQLiteConfig config = new SQLiteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        config.setBusyTimeout(settings.busyTimeoutMillis());
+        writeConnection = TimedConnection.wrap(config.createConnection(url()), timings);
+
+        ledgerWriter = new LedgerWriter(writeConnection, commitLogs(), settings, logger);
+        ledgerWriter.start();
+    }
+
+    private void openMemory() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(settings.busyTimeoutMillis());
+        Connection connection = config.createConnection(memoryUrl());
+
+        try {
+            if (file.exists()) {
+                long started = System.nanoTime();
+                int rc = ((SQLiteConnection) connection).getDatabase().restore("main", file.getAbsolutePath(), null);
+                if (rc != 0) {
+                    throw new SQLException("Unable to load " + file.getName() + " into memory (SQLite result code " + rc + ")");
+                }
+                logger.info("Loaded " + file.getName() + " into memory in "
+                        + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms.");
+            }
+
+            journal = new LedgerJournal(new File(file.getParentFile(), JOURNAL_FILE), settings.memoryFsyncMillis(), logger);
+            int replayed = journal.replay(connection, checkpointSequence(connection));
+            if (replayed > 0) {
+                logger.info("Replayed " + replayed + " ledger journal batches written after the last checkpoint.");
+            }
+        } catch (SQLException | IOException exception) {
+            closeQuietly(connection, "write");
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+            throw exception instanceof SQLException sqlException
+                    ? sqlException
+                    : new SQLException("Unable to replay the ledger journal", exception);
+        }
+
+        writeConnection = TimedConnection.wrap(JournalingConnection.wrap(connection, journal), timings);
+        ledgerWriter = new LedgerWriter(writeConnection, commitLogs(), settings, logger);
+        ledgerWriter.start();
+    }
+
+    private List<CommitLog> commitLogs() {
+        List<CommitLog> logs = new ArrayList<>(2);
+        if (journal != null) {
+            logs.add(journal);
+        }
+        if (changeFeed != null) {
+            logs.add(changeFeed);
+        }
+        return logs;
+    }
+
+    // Staged until the writer's batch commits; no-op when the feed is disabled.
+    public void publish(CrystalEvent event, String area, String originWorld, String world) {
+        if (changeFeed != null) {
+            changeFeed.stage(event, area, originWorld, world);
+        }
+    }
+
+    private static long checkpointSequence(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS journal_checkpoint (sequence INTEGER NOT NULL)");
+            try (ResultSet resultSet = statement.executeQuery("SELECT sequence FROM journal_checkpoint")) {
+                if (resultSet.next()) {
+                    return resultSet.getLong(1);
+                }
+            }
+            statement.executeUpdate("INSERT INTO journal_checkpoint (sequence) VALUES (0)");
+            return 0L;
+        }
+    }
+
+    public void openReaders() throws SQLException {
+        idleReaders = new ArrayBlockingQueue<>(settings.readConnections());
+        for (int i = 0; i < settings.readConnections(); i++) {
+            Connection connection = TimedConnection.wrap(openReadConnection(), timings);
+            readerConnections.add(connection);
+            idleReaders.add(connection);
+        }
+    }
+
+    private Connection openReadConnection() throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        config.setBusyTimeout(settings.busyTimeoutMillis());
+
+        Connection connection = config.createConnection(settings.memoryMode() ? memoryUrl() : url());
+        if (settings.memoryMode()) {
+            // Shared-cache readers would otherwise block on the writer's table locks. The price is
+            // dirty reads, which is why the entry cache is off in memory mode.
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA read_uncommitted = true");
+            }
+        }
+        return connection;
+    }
+
+    public <T> T read(SqlWork<T> work) throws SQLException {
+        if (idleReaders == null) {
+            throw new SQLException("Ledger read connections are not open");
+        }
+
+        Connection connection;
+        try {
+            connection = idleReaders.poll(settings.busyTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a ledger read connection", exception);
+        }
+
+        if (connection == null) {
+            throw new SQLException("Timed out waiting for a ledger read connection");
+        }
+
+        try {
+            return work.apply(connection);
+        } finally {
+            idleReaders.add(connection);
+        }
+    }
+
+    /**
+     * Queues {@code work} for the next group commit.
+     */
+    public <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        if (ledgerWriter == null) {
+            return CompletableFuture.failedFuture(new SQLException("Ledger writer is not open"));
+        }
+        return ledgerWriter.submit(work);
+    }
+
+    // Outside any transaction, for VACUUM and ATTACH.
+    public <T> T writeStandalone(SqlWork<T> work) throws SQLException {
+        if (ledgerWriter == null) {
+            throw new SQLException("Ledger writer is not open");
+        }
+        if (ledgerWriter.isWriterThread()) {
+            throw new SQLException("Standalone ledger work cannot run inside a write batch");
+        }
+        return await(ledgerWriter.submitStandalone(work));
+    }
+
+    // Runs inline when called from the writer thread.
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        if (ledgerWriter != null && ledgerWriter.isWriterThread()) {
+            return work.apply(writeConnection);
+        }
+
+        return await(submit(work));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the ledger writer", exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof SQLException sqlException) {
+                throw sqlException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SQLException("Ledger write failed", cause);
+        }
+    }
+
+    // Completes with 0 in sqlite mode, where every commit already lands in the file.
+    public CompletableFuture<Long> checkpointAsync() {
+        if (!settings.memoryMode()) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        if (ledgerWriter == null) {
+            return CompletableFuture.failedFuture(new SQLException("Ledger writer is not open"));
+        }
+        return ledgerWriter.submitStandalone(this::writeCheckpoint);
+    }
+
+    public long checkpoint() throws SQLException {
+        if (ledgerWriter != null && ledgerWriter.isWriterThread()) {
+            throw new SQLException("A ledger checkpoint cannot run inside a write batch");
+        }
+        return await(checkpointAsync());
+    }
+
+    // Runs on the writer thread between batches, so the copy always ends on a committed batch.
+    private long writeCheckpoint(Connection connection) throws SQLException {
+        long sequence = journal.sequence();
+        SQLiteConnection target = connection.unwrap(SQLiteConnection.class);
+        try (PreparedStatement statement = target.prepareStatement("UPDATE journal_checkpoint SET sequence = ?")) {
+            statement.setLong(1, sequence);
+            statement.executeUpdate();
+        }
+
+        File snapshot = new File(file.getParentFile(), file.getName() + ".tmp");
+        try {
+            Files.deleteIfExists(snapshot.toPath());
+            int rc = target.getDatabase().backup("main", snapshot.getAbsolutePath(), null);
+            if (rc != 0) {
+                throw new SQLException("Unable to write ledger checkpoint (SQLite result code " + rc + ")");
+            }
+
+            // A WAL left over from sqlite mode would be replayed over the new file on the next open.
+            Files.deleteIfExists(new File(file.getPath() + "-wal").toPath());
+            Files.deleteIfExists(new File(file.getPath() + "-shm").toPath());
+            Files.move(snapshot.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            journal.truncate();
+        } catch (IOException exception) {
+            throw new SQLException("Unable to write ledger checkpoint", exception);
+        }
+        return sequence;
+    }
+
+    public List<LatencySnapshot> statementTimings() {
+        return timings == null ? List.of() : timings.snapshot();
+    }
+
+    public WriteQueueMetrics writeQueueMetrics() {
+        return ledgerWriter == null
+                ? new WriteQueueMetrics(0, 0, 0, 0L, 0L, 0L, 0.0D, 0L)
+                : ledgerWriter.metrics();
+    }
+
+    public void close() {
+        if (ledgerWriter != null && journal != null) {
+            try {
+                checkpoint();
+            } catch (SQLException | RuntimeException exception) {
+                logger.warning("Failed to checkpoint the in-memory ledger on shutdown, the journal will be replayed: "
+                        + exception.getMessage());
+            }
+        }
+
+        if (ledgerWriter != null) {
+            if (!ledgerWriter.shutdown(SHUTDOWN_TIMEOUT_MILLIS)) {
+                logger.warning("Ledger writer did not finish pending writes before shutdown");
+            }
+            ledgerWriter = null;
+        }
+
+        for (Connection connection : readerConnections) {
+            closeQuietly(connection, "read");
+        }
+        readerConnections.clear();
+        idleReaders = null;
+
+        if (writeConnection != null) {
+            closeQuietly(writeConnection, "write");
+            writeConnection = null;
+        }
+
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+
+        if (changeFeed != null) {
+            changeFeed.close();
+            changeFeed = null;
+        }
+
+        if (slowLog != null) {
+            slowLog.shutdown();
+            slowLog = null;
+        }
+    }
+
+    private void closeQuietly(Connection connection, String role) {
+        try {
+            connection.close();
+        } catch (SQLException exception) {
+            logger.warning("Failed to close ledger " + role + " connection: " + exception.getMessage());
+        }
+    }
+
+    private String url() {
+        return "jdbc:sqlite:" + file.getAbsolutePath();
+    }
+
+    // Named after the file so two ledgers in one JVM never share a cache.
+    private String memoryUrl() {
+        return "jdbc:sqlite:file:ledger-" + Integer.toHexString(file.getAbsolutePath().hashCode())
+                + "?mode=memory&cache=shared";
+    }
+}
@@ -0,0 +1,78 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached view of a world or area name dictionary table.
+ */
+public final class LedgerDictionary {
+    private final String table;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+    public LedgerDictionary(String table) {
+        this.table = table;
+    }
+
+    public void load(Connection connection) throws SQLException {
+        ids.clear();
+        names.clear();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id, name FROM " + table);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                cache(resultSet.getInt("id"), resultSet.getString("name"));
+            }
+        }
+    }
+
+    // New names are cached only once their insert has committed.
+    public int resolve(LedgerDatabase database, String name) throws SQLException {
+        Integer cached = ids.get(name);
+        if (cached != null) {
+            return cached;
+        }
+
+        int id = database.write(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT OR IGNORE INTO " + table + " (name) VALUES (?)")) {
+                insert.setString(1, name);
+                insert.executeUpdate();
+            }
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT id FROM " + table + " WHERE name = ?")) {
+                select.setString(1, name);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("Unable to resolve " + table + " entry for " + name);
+                    }
+                    return resultSet.getInt(1);
+                }
+            }
+        });
+        cache(id, name);
+        return id;
+    }
+
+    public Integer find(String name) {
+        return ids.get(name);
+    }
+
+    public String nameOf(int id) {
+        return names.get(id);
+    }
+
+    public void clear() {
+        ids.clear();
+        names.clear();
+    }
+
+    private void cache(int id, String name) {
+        ids.put(name, id);
+        names.put(id, name);
+    }
+}
@@ -0,0 +1,280 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Redo log of committed write batches for the in-memory ledger mode.
+ */
+final class LedgerJournal implements CommitLog {
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte TEXT = 4;
+    private static final byte BLOB = 5;
+
+    private final File file;
+    private final long fsyncIntervalNanos;
+    private final Logger logger;
+    private final List<Recorded> task = new ArrayList<>();
+    private final List<Recorded> batch = new ArrayList<>();
+    private FileChannel channel;
+    private long sequence;
+    private long lastSync = System.nanoTime();
+    private boolean dirty;
+
+    LedgerJournal(File file, long fsyncIntervalMillis, Logger logger) {
+        this.file = file;
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(fsyncIntervalMillis);
+        this.logger = logger;
+    }
+
+    record Recorded(String sql, Object[] parameters) {
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    // A torn record at the tail, left by a crash mid-append, is cut off.
+    int replay(Connection connection, long checkpointSequence) throws IOException, SQLException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        sequence = checkpointSequence;
+
+        int replayed = 0;
+        long validLength = 0L;
+        DataInputStream input = new DataInputStream(Channels.newInputStream(channel.position(0L)));
+        while (true) {
+            byte[] payload;
+            try {
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length <= 0 || length > channel.size()) {
+                    break;
+                }
+                payload = input.readNBytes(length);
+                if (payload.length != length || checksum(payload) != checksum) {
+                    break;
+                }
+            } catch (EOFException exception) {
+                break;
+            }
+
+            DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+            long recordSequence = record.readLong();
+            if (recordSequence > sequence) {
+                apply(connection, readStatements(record));
+                sequence = recordSequence;
+                replayed++;
+            }
+            validLength += Integer.BYTES * 2L + payload.length;
+        }
+
+        if (validLength < channel.size()) {
+            logger.warning("Discarding " + (channel.size() - validLength) + " bytes of incomplete ledger journal");
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+        return replayed;
+    }
+
+    void record(String sql, Object[] parameters) {
+        task.add(new Recorded(sql, parameters));
+    }
+
+    @Override
+    public String name() {
+        return "ledger journal";
+    }
+
+    @Override
+    public void keepTask() {
+        batch.addAll(task);
+        task.clear();
+    }
+
+    @Override
+    public void discardTask() {
+        task.clear();
+    }
+
+    @Override
+    public void discardBatch() {
+        task.clear();
+        batch.clear();
+    }
+
+    @Override
+    public void commitBatch() throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeLong(sequence + 1);
+        output.writeInt(batch.size());
+        for (Recorded recorded : batch) {
+            writeString(output, recorded.sql());
+            output.writeInt(recorded.parameters().length);
+            for (Object parameter : recorded.parameters()) {
+                writeParameter(output, parameter);
+            }
+        }
+        batch.clear();
+
+        byte[] payload = bytes.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 2 + payload.length);
+        buffer.putInt(payload.length).putInt(checksum(payload)).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        sequence++;
+        dirty = true;
+        syncIfDue();
+    }
+
+    @Override
+    public void syncIfDue() throws IOException {
+        if (dirty && System.nanoTime() - lastSync >= fsyncIntervalNanos) {
+            sync();
+        }
+    }
+
+    @Override
+    public void sync() throws IOException {
+        if (channel != null && dirty) {
+            channel.force(false);
+            dirty = false;
+        }
+        lastSync = System.nanoTime();
+    }
+
+    // Only once a checkpoint holding everything in it is on disk.
+    void truncate() throws IOException {
+        channel.truncate(0L);
+        channel.position(0L);
+        channel.force(true);
+        dirty = false;
+    }
+
+    void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            sync();
+            channel.close();
+        } catch (IOException exception) {
+            logger.warning("Failed to close ledger journal: " + exception.getMessage());
+        }
+        channel = null;
+    }
+
+    private static void apply(Connection connection, List<Recorded> statements) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Recorded recorded : statements) {
+                try (PreparedStatement statement = connection.prepareStatement(recorded.sql())) {
+                    Object[] parameters = recorded.parameters();
+                    for (int i = 0; i < parameters.length; i++) {
+                        statement.setObject(i + 1, parameters[i]);
+                    }
+                    statement.execute();
+                }
+            }
+            connection.commit();
+        } catch (SQLException exception) {
+            connection.rollback();
+            throw exception;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static List<Recorded> readStatements(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        List<Recorded> statements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String sql = readString(input);
+            Object[] parameters = new Object[input.readInt()];
+            for (int p = 0; p < parameters.length; p++) {
+                parameters[p] = readParameter(input);
+            }
+            statements.add(new Recorded(sql, parameters));
+        }
+        return statements;
+    }
+
+    private static void writeParameter(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof Integer number) {
+            output.writeByte(INT);
+            output.writeInt(number);
+        } else if (value instanceof Long number) {
+            output.writeByte(LONG);
+            output.writeLong(number);
+        } else if (value instanceof Double number) {
+            output.writeByte(DOUBLE);
+            output.writeDouble(number);
+        } else if (value instanceof byte[] blob) {
+            output.writeByte(BLOB);
+            output.writeInt(blob.length);
+            output.write(blob);
+        } else {
+            output.writeByte(TEXT);
+            writeString(output, value.toString());
+        }
+    }
+
+    private static Object readParameter(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        return switch (type) {
+            case NULL -> null;
+            case INT -> input.readInt();
+            case LONG -> input.readLong();
+            case DOUBLE -> input.readDouble();
+            case BLOB -> input.readNBytes(input.readInt());
+            case TEXT -> readString(input);
+            default -> throw new IOException("Unknown journal parameter type " + type);
+        };
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        return new String(input.readNBytes(input.readInt()), StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,339 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Ordered schema history of the ledger database. Append new steps; never edit applied ones.
+ */
+public final class LedgerMigrations {
+    private LedgerMigrations() {
+    }
+
+    public static List<Migration> all() {
+        return List.of(
+                new Migration(1, "baseline schema", LedgerMigrations::createBaseline),
+                new Migration(2, "normalise legacy status values", LedgerMigrations::normaliseStatuses),
+                new Migration(3, "compact crystal storage", LedgerMigrations::compactStorage, true),
+                new Migration(4, "materialised supply counters", LedgerMigrations::supplyCounters),
+                new Migration(5, "cold tier for terminal crystals", LedgerMigrations::coldTier),
+                new Migration(6, "event-sourced crystal history", LedgerMigrations::eventHistory),
+                new Migration(7, "supply history", LedgerMigrations::supplyHistory),
+                new Migration(8, "beacon claims", LedgerMigrations::claims)
+        );
+    }
+
+    // Uses IF NOT EXISTS so ledgers created before versioning adopt the baseline unchanged.
+    private static void createBaseline(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS crystals (
+                        uuid TEXT PRIMARY KEY,
+                        area_id TEXT,
+                        world TEXT,
+                        x INTEGER,
+                        y INTEGER,
+                        z INTEGER,
+                        status TEXT NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        updated_at INTEGER NOT NULL
+                    )
+                    """);
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_crystals_location ON crystals(world, x, y, z)");
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS crystal_events (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        crystal_uuid TEXT NOT NULL,
+                        event_type TEXT NOT NULL,
+                        details TEXT,
+                        occurred_at INTEGER NOT NULL,
+                        FOREIGN KEY (crystal_uuid) REFERENCES crystals(uuid) ON DELETE CASCADE
+                    )
+                    """);
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_crystal_events_crystal ON crystal_events(crystal_uuid)");
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS offline_crystals (
+                        crystal_uuid TEXT PRIMARY KEY,
+                        player_uuid TEXT NOT NULL,
+                        player_name TEXT,
+                        details TEXT,
+                        recorded_at INTEGER NOT NULL,
+                        FOREIGN KEY (crystal_uuid) REFERENCES crystals(uuid) ON DELETE CASCADE
+                    )
+                    """);
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_offline_crystals_player ON offline_crystals(player_uuid)");
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS areas (
+                        id TEXT PRIMARY KEY,
+                        world TEXT NOT NULL,
+                        target_crystals INTEGER NOT NULL DEFAULT 0
+                    )
+                    """);
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS area_chunks (
+                        area_id TEXT NOT NULL,
+                        chunk_x INTEGER NOT NULL,
+                        chunk_z INTEGER NOT NULL,
+                        PRIMARY KEY (area_id, chunk_x, chunk_z),
+                        FOREIGN KEY (area_id) REFERENCES areas(id) ON DELETE CASCADE
+                    )
+                    """);
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS idx_area_chunks_area ON area_chunks(area_id)");
+        }
+    }
+
+    private static void normaliseStatuses(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE crystals SET status = 'ACTIVE' WHERE status = 'active'");
+            statement.executeUpdate("UPDATE crystals SET status = 'REDEEMED' WHERE status = 'closed'");
+        }
+    }
+
+    // Status codes: 1 ACTIVE, 2 HELD, 3 LOST, 4 REDEEMED. The area registry keeps its TEXT ids.
+    private static void compactStorage(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("""
+                    SELECT COUNT(*)
+                    FROM crystals
+                    WHERE upper(status) NOT IN ('ACTIVE', 'HELD', 'LOST', 'REDEEMED')
+                       OR length(replace(uuid, '-', '')) != 32
+                    """)) {
+                int invalid = resultSet.next() ? resultSet.getInt(1) : 0;
+                if (invalid > 0) {
+                    throw new SQLException(invalid + " ledger rows have an unknown status or malformed UUID;"
+                            + " fix them before upgrading");
+                }
+            }
+
+            statement.executeUpdate("""
+                    CREATE TABLE worlds (
+                        id INTEGER PRIMARY KEY,
+                        name TEXT NOT NULL UNIQUE
+                    )
+                    """);
+            statement.executeUpdate("""
+                    CREATE TABLE area_names (
+                        id INTEGER PRIMARY KEY,
+                        name TEXT NOT NULL UNIQUE
+                    )
+                    """);
+            statement.executeUpdate("INSERT INTO worlds (name) SELECT DISTINCT world FROM crystals WHERE world IS NOT NULL");
+            statement.executeUpdate("INSERT INTO area_names (name) SELECT DISTINCT area_id FROM crystals WHERE area_id IS NOT NULL");
+
+            statement.executeUpdate("""
+                    CREATE TABLE crystals_compact (
+                        uuid BLOB PRIMARY KEY,
+                        area INTEGER,
+                        world INTEGER,
+                        x INTEGER,
+                        y INTEGER,
+                        z INTEGER,
+                        status INTEGER NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        updated_at INTEGER NOT NULL
+                    ) WITHOUT ROWID
+                    """);
+            statement.executeUpdate("""
+                    INSERT INTO crystals_compact (uuid, area, world, x, y, z, status, created_at, updated_at)
+                    SELECT unhex(replace(c.uuid, '-', '')), a.id, w.id, c.x, c.y, c.z,
+                           CASE upper(c.status) WHEN 'ACTIVE' THEN 1 WHEN 'HELD' THEN 2 WHEN 'LOST' THEN 3 ELSE 4 END,
+                           c.created_at, c.updated_at
+                    FROM crystals c
+                    LEFT JOIN area_names a ON a.name = c.area_id
+                    LEFT JOIN worlds w ON w.name = c.world
+                    """);
+
+            statement.executeUpdate("""
+                    CREATE TABLE crystal_events_compact (
+                        id INTEGER PRIMARY KEY,
+                        crystal_uuid BLOB NOT NULL,
+                        event_type TEXT NOT NULL,
+                        details TEXT,
+                        occurred_at INTEGER NOT NULL
+                    )
+                    """);
+            statement.executeUpdate("""
+                    INSERT INTO crystal_events_compact (id, crystal_uuid, event_type, details, occurred_at)
+                    SELECT id, unhex(replace(crystal_uuid, '-', '')), event_type, details, occurred_at
+                    FROM crystal_events
+                    WHERE length(replace(crystal_uuid, '-', '')) = 32
+                    """);
+
+            statement.executeUpdate("""
+                    CREATE TABLE offline_crystals_compact (
+                        crystal_uuid BLOB PRIMARY KEY,
+                        player_uuid BLOB NOT NULL,
+                        player_name TEXT,
+                        details TEXT,
+                        recorded_at INTEGER NOT NULL
+                    ) WITHOUT ROWID
+                    """);
+            statement.executeUpdate("""
+                    INSERT INTO offline_crystals_compact (crystal_uuid, player_uuid, player_name, details, recorded_at)
+                    SELECT unhex(replace(crystal_uuid, '-', '')), unhex(replace(player_uuid, '-', '')),
+                           player_name, details, recorded_at
+                    FROM offline_crystals
+                    WHERE length(replace(crystal_uuid, '-', '')) = 32 AND length(replace(player_uuid, '-', '')) = 32
+                    """);
+
+            statement.executeUpdate("DROP TABLE crystal_events");
+            statement.executeUpdate("DROP TABLE offline_crystals");
+            statement.executeUpdate("DROP TABLE crystals");
+            statement.executeUpdate("ALTER TABLE crystals_compact RENAME TO crystals");
+            statement.executeUpdate("ALTER TABLE crystal_events_compact RENAME TO crystal_events");
+            statement.executeUpdate("ALTER TABLE offline_crystals_compact RENAME TO offline_crystals");
+
+            statement.executeUpdate("CREATE INDEX idx_crystals_status ON crystals(status)");
+            statement.executeUpdate("CREATE INDEX idx_crystal_events_crystal ON crystal_events(crystal_uuid)");
+            statement.executeUpdate("CREATE INDEX idx_offline_crystals_player ON offline_crystals(player_uuid)");
+        }
+    }
+
+    private static void supplyCounters(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("ALTER TABLE crystals ADD COLUMN origin_world INTEGER");
+            statement.executeUpdate("UPDATE crystals SET origin_world = world WHERE world IS NOT NULL");
+            statement.executeUpdate("""
+                    UPDATE crystals
+                    SET origin_world = (
+                        SELECT w.id
+                        FROM area_names n
+                        JOIN areas a ON a.id = n.name
+                        JOIN worlds w ON w.name = a.world
+                        WHERE n.id = crystals.area
+                    )
+                    WHERE origin_world IS NULL AND area IS NOT NULL
+                    """);
+
+            statement.executeUpdate("""
+                    CREATE TABLE supply_counters (
+                        area INTEGER NOT NULL,
+                        world INTEGER NOT NULL,
+                        status INTEGER NOT NULL,
+                        total INTEGER NOT NULL,
+                        PRIMARY KEY (area, world, status)
+                    ) WITHOUT ROWID
+                    """);
+            statement.executeUpdate("""
+                    INSERT INTO supply_counters (area, world, status, total)
+                    SELECT COALESCE(area, 0), COALESCE(origin_world, 0), status, COUNT(*)
+                    FROM crystals
+                    GROUP BY 1, 2, 3
+                    """);
+        }
+    }
+
+    // Terminal rows move here once they age out, so status scans over crystals only see live history.
+    private static void coldTier(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE crystals_archive (
+                        uuid BLOB PRIMARY KEY,
+                        area INTEGER,
+                        world INTEGER,
+                        x INTEGER,
+                        y INTEGER,
+                        z INTEGER,
+                        status INTEGER NOT NULL,
+                        created_at INTEGER NOT NULL,
+                        updated_at INTEGER NOT NULL,
+                        origin_world INTEGER,
+                        archived_at INTEGER NOT NULL
+                    ) WITHOUT ROWID
+                    """);
+            statement.executeUpdate("""
+                    CREATE TABLE crystal_events_archive (
+                        id INTEGER PRIMARY KEY,
+                        crystal_uuid BLOB NOT NULL,
+                        event_type TEXT NOT NULL,
+                        details TEXT,
+                        occurred_at INTEGER NOT NULL
+                    )
+                    """);
+            statement.executeUpdate("CREATE INDEX idx_crystal_events_archive_crystal ON crystal_events_archive(crystal_uuid)");
+
+            statement.executeUpdate("DROP INDEX idx_crystals_status");
+            statement.executeUpdate("CREATE INDEX idx_crystals_status ON crystals(status, updated_at)");
+        }
+    }
+
+    // Events written before this step keep NULL images and are skipped by the replay.
+    private static void eventHistory(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : List.of("crystal_events", "crystal_events_archive")) {
+                for (String column : List.of("status", "area", "origin_world", "world", "x", "y", "z", "created_at")) {
+                    statement.executeUpdate("ALTER TABLE %s ADD COLUMN %s INTEGER".formatted(table, column));
+                }
+            }
+
+            statement.executeUpdate("""
+                    INSERT INTO crystal_events (crystal_uuid, event_type, details, occurred_at, status, area,
+                                                origin_world, world, x, y, z, created_at)
+                    SELECT uuid, 'BASELINE', NULL, updated_at, status, area, origin_world, world, x, y, z, created_at
+                    FROM crystals
+                    """);
+            statement.executeUpdate("""
+                    INSERT INTO crystal_events_archive (crystal_uuid, event_type, details, occurred_at, status, area,
+                                                        origin_world, world, x, y, z, created_at)
+                    SELECT uuid, 'BASELINE', NULL, updated_at, status, area, origin_world, world, x, y, z, created_at
+                    FROM crystals_archive
+                    """);
+        }
+    }
+
+    // Resolution is the bucket width in seconds, 0 for raw samples; see SupplyHistory.
+    private static void supplyHistory(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE supply_history (
+                        resolution INTEGER NOT NULL,
+                        bucket INTEGER NOT NULL,
+                        active INTEGER NOT NULL,
+                        held INTEGER NOT NULL,
+                        lost INTEGER NOT NULL,
+                        redeemed INTEGER NOT NULL,
+                        PRIMARY KEY (resolution, bucket)
+                    ) WITHOUT ROWID
+                    """);
+        }
+    }
+
+    // No foreign keys: ledger connections do not enforce them, the claim store deletes child rows itself.
+    private static void claims(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE claims (
+                        id INTEGER PRIMARY KEY,
+                        world INTEGER NOT NULL,
+                        x INTEGER NOT NULL,
+                        y INTEGER NOT NULL,
+                        z INTEGER NOT NULL,
+                        owner BLOB NOT NULL,
+                        radius REAL NOT NULL,
+                        UNIQUE (world, x, y, z)
+                    )
+                    """);
+            statement.executeUpdate("CREATE INDEX idx_claims_owner ON claims(owner)");
+            statement.executeUpdate("""
+                    CREATE TABLE claim_chunks (
+                        world INTEGER NOT NULL,
+                        chunk_x INTEGER NOT NULL,
+                        chunk_z INTEGER NOT NULL,
+                        claim_id INTEGER NOT NULL,
+                        PRIMARY KEY (world, chunk_x, chunk_z, claim_id)
+                    ) WITHOUT ROWID
+                    """);
+            statement.executeUpdate("CREATE INDEX idx_claim_chunks_claim ON claim_chunks(claim_id)");
+            statement.executeUpdate("""
+                    CREATE TABLE claim_trusted (
+                        claim_id INTEGER NOT NULL,
+                        player BLOB NOT NULL,
+                        PRIMARY KEY (claim_id, player)
+                    ) WITHOUT ROWID
+                    """);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dev.crystalmath.amethyst.ledger;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+/**
+ * Tunables for the ledger database, read from the {@code ledger} section of config.yml.
+ */
+public record LedgerSettings(boolean memoryMode,
+                             int memoryCheckpointSeconds,
+                             int memoryFsyncMillis,
+                             int readConnections,
+                             int busyTimeoutMillis,
+                             int writeQueueCapacity,
+                             int groupCommitMaxBatch,
+                             int groupCommitMaxDelayMillis,
+                             int scanFetchSize,
+                             int entryCacheSize,
+                             int entryCacheExpireSeconds,
+                             int offlineHoldingsFlushMillis,
+                             int backupIntervalMinutes,
+                             int backupKeep,
+                             int backupPagesPerStep,
+                             int archiveAfterDays,
+                             int archiveBatchSize,
+                             int archiveIntervalMinutes,
+                             int slowStatementMillis,
+                             int slowLogMaxKilobytes,
+                             int slowLogKeep,
+                             int historySampleSeconds,
+                             int historyKeepRawHours,
+                             int historyKeepHourlyDays,
+                             boolean changeFeedEnabled,
+                             int changeFeedMaxFileMegabytes,
+                             int changeFeedKeepFiles,
+                             int changeFeedFsyncMillis) {
+    private static final String MODE_MEMORY = "memory";
+    private static final int DEFAULT_MEMORY_CHECKPOINT_SECONDS = 300;
+    private static final int DEFAULT_MEMORY_FSYNC_MILLIS = 200;
+    private static final int DEFAULT_READ_CONNECTIONS = 4;
+    private static final int DEFAULT_BUSY_TIMEOUT_MILLIS = 5000;
+    private static final int DEFAULT_WRITE_QUEUE_CAPACITY = 8192;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_BATCH = 256;
+    private static final int DEFAULT_GROUP_COMMIT_MAX_DELAY_MILLIS = 5;
+    private static final int DEFAULT_SCAN_FETCH_SIZE = 1000;
+    private static final int DEFAULT_ENTRY_CACHE_SIZE = 4096;
+    private static final int DEFAULT_ENTRY_CACHE_EXPIRE_SECONDS = 300;
+    private static final int DEFAULT_OFFLINE_HOLDINGS_FLUSH_MILLIS = 1000;
+    private static final int DEFAULT_BACKUP_INTERVAL_MINUTES = 360;
+    private static final int DEFAULT_BACKUP_KEEP = 7;
+    private static final int DEFAULT_BACKUP_PAGES_PER_STEP = 256;
+    private static final int DEFAULT_ARCHIVE_AFTER_DAYS = 30;
+    private static final int DEFAULT_ARCHIVE_BATCH_SIZE = 500;
+    private static final int DEFAULT_ARCHIVE_INTERVAL_MINUTES = 60;
+    private static final int DEFAULT_SLOW_STATEMENT_MILLIS = 50;
+    private static final int DEFAULT_SLOW_LOG_MAX_KILOBYTES = 1024;
+    private static final int DEFAULT_SLOW_LOG_KEEP = 3;
+    private static final int DEFAULT_HISTORY_SAMPLE_SECONDS = 60;
+    private static final int DEFAULT_HISTORY_KEEP_RAW_HOURS = 48;
+    private static final int DEFAULT_HISTORY_KEEP_HOURLY_DAYS = 90;
+    private static final int DEFAULT_CHANGE_FEED_MAX_FILE_MEGABYTES = 32;
+    private static final int DEFAULT_CHANGE_FEED_KEEP_FILES = 8;
+    private static final int DEFAULT_CHANGE_FEED_FSYNC_MILLIS = 1000;
+
+    public boolean archiveEnabled() {
+        return archiveAfterDays > 0;
+    }
+
+    public boolean historyEnabled() {
+        return historySampleSeconds > 0;
+    }
+
+    public static LedgerSettings defaults() {
+        return new LedgerSettings(false, DEFAULT_MEMORY_CHECKPOINT_SECONDS, DEFAULT_MEMORY_FSYNC_MILLIS,
+                DEFAULT_READ_CONNECTIONS, DEFAULT_BUSY_TIMEOUT_MILLIS, DEFAULT_WRITE_QUEUE_CAPACITY,
+                DEFAULT_GROUP_COMMIT_MAX_BATCH, DEFAULT_GROUP_COMMIT_MAX_DELAY_MILLIS, DEFAULT_SCAN_FETCH_SIZE,
+                DEFAULT_ENTRY_CACHE_SIZE, DEFAULT_ENTRY_CACHE_EXPIRE_SECONDS, DEFAULT_OFFLINE_HOLDINGS_FLUSH_MILLIS,
+                DEFAULT_BACKUP_INTERVAL_MINUTES, DEFAULT_BACKUP_KEEP, DEFAULT_BACKUP_PAGES_PER_STEP,
+                DEFAULT_ARCHIVE_AFTER_DAYS, DEFAULT_ARCHIVE_BATCH_SIZE, DEFAULT_ARCHIVE_INTERVAL_MINUTES,
+                DEFAULT_SLOW_STATEMENT_MILLIS, DEFAULT_SLOW_LOG_MAX_KILOBYTES, DEFAULT_SLOW_LOG_KEEP,
+                DEFAULT_HISTORY_SAMPLE_SECONDS, DEFAULT_HISTORY_KEEP_RAW_HOURS, DEFAULT_HISTORY_KEEP_HOURLY_DAYS,
+                true, DEFAULT_CHANGE_FEED_MAX_FILE_MEGABYTES, DEFAULT_CHANGE_FEED_KEEP_FILES,
+                DEFAULT_CHANGE_FEED_FSYNC_MILLIS);
+    }
+
+    public static LedgerSettings fromConfig(ConfigurationSection section) {
+        if (section == null) {
+            return defaults();
+        }
+
+        boolean memoryMode = MODE_MEMORY.equalsIgnoreCase(section.getString("mode", "sqlite"));
+        int checkpointSeconds = Math.max(10, section.getInt("memory.checkpoint-interval-seconds", DEFAULT_MEMORY_CHECKPOINT_SECONDS));
+        int fsyncMillis = Math.max(0, section.getInt("memory.fsync-interval-millis", DEFAULT_MEMORY_FSYNC_MILLIS));
+        int readConnections = Math.max(1, section.getInt("read-connections", DEFAULT_READ_CONNECTIONS));
+        int busyTimeout = Math.max(0, section.getInt("busy-timeout-millis", DEFAULT_BUSY_TIMEOUT_MILLIS));
+        int queueCapacity = Math.max(1, section.getInt("write-queue-capacity", DEFAULT_WRITE_QUEUE_CAPACITY));
+        int maxBatch = Math.max(1, section.getInt("group-commit.max-batch", DEFAULT_GROUP_COMMIT_MAX_BATCH));
+        int maxDelay = Math.max(0, section.getInt("group-commit.max-delay-millis", DEFAULT_GROUP_COMMIT_MAX_DELAY_MILLIS));
+        int scanFetchSize = Math.max(1, section.getInt("scan-fetch-size", DEFAULT_SCAN_FETCH_SIZE));
+        int entryCacheSize = Math.max(0, section.getInt("entry-cache.max-size", DEFAULT_ENTRY_CACHE_SIZE));
+        int entryCacheExpire = Math.max(1, section.getInt("entry-cache.expire-after-seconds", DEFAULT_ENTRY_CACHE_EXPIRE_SECONDS));
+        int offlineFlush = Math.max(50, section.getInt("offline-holdings.flush-interval-millis", DEFAULT_OFFLINE_HOLDINGS_FLUSH_MILLIS));
+        int backupInterval = Math.max(0, section.getInt("backup.interval-minutes", DEFAULT_BACKUP_INTERVAL_MINUTES));
+        int backupKeep = Math.max(1, section.getInt("backup.keep", DEFAULT_BACKUP_KEEP));
+        int backupPagesPerStep = Math.max(1, section.getInt("backup.pages-per-step", DEFAULT_BACKUP_PAGES_PER_STEP));
+        int archiveAfterDays = Math.max(0, section.getInt("archive.after-days", DEFAULT_ARCHIVE_AFTER_DAYS));
+        int archiveBatchSize = Math.max(1, section.getInt("archive.batch-size", DEFAULT_ARCHIVE_BATCH_SIZE));
+        int archiveInterval = Math.max(1, section.getInt("archive.interval-minutes", DEFAULT_ARCHIVE_INTERVAL_MINUTES));
+        int slowMillis = Math.max(0, section.getInt("slow-log.threshold-millis", DEFAULT_SLOW_STATEMENT_MILLIS));
+        int slowLogMaxKilobytes = Math.max(16, section.getInt("slow-log.max-file-kb", DEFAULT_SLOW_LOG_MAX_KILOBYTES));
+        int slowLogKeep = Math.max(1, section.getInt("slow-log.keep-files", DEFAULT_SLOW_LOG_KEEP));
+        int historySample = Math.max(0, section.getInt("history.sample-interval-seconds", DEFAULT_HISTORY_SAMPLE_SECONDS));
+        int historyRawHours = Math.max(1, section.getInt("history.keep-raw-hours", DEFAULT_HISTORY_KEEP_RAW_HOURS));
+        int historyHourlyDays = Math.max(1, section.getInt("history.keep-hourly-days", DEFAULT_HISTORY_KEEP_HOURLY_DAYS));
+        boolean changeFeed = section.getBoolean("change-feed.enabled", true);
+        int changeFeedMaxMegabytes = Math.max(1, section.getInt("change-feed.max-file-mb", DEFAULT_CHANGE_FEED_MAX_FILE_MEGABYTES));
+        int changeFeedKeep = Math.max(1, section.getInt("change-feed.keep-files", DEFAULT_CHANGE_FEED_KEEP_FILES));
+        int changeFeedFsync = Math.max(0, section.getInt("change-feed.fsync-interval-millis", DEFAULT_CHANGE_FEED_FSYNC_MILLIS));
+        return new LedgerSettings(memoryMode, checkpointSeconds, fsyncMillis, readConnections, busyTimeout, queueCapacity, maxBatch, maxDelay, scanFetchSize,
+                entryCacheSize, entryCacheExpire, offlineFlush, backupInterval, backupKeep,
+                backupPagesPerStep, archiveAfterDays, archiveBatchSize, archiveInterval, slowMillis,
+                slowLogMaxKilobytes, slowLogKeep, historySample, historyRawHours, historyHourlyDays, changeFeed,
+                changeFeedMaxMegabytes, changeFeedKeep, changeFeedFsync);
+    }
+}
@@ -0,0 +1,323 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single writer thread that group-commits queued ledger writes, one savepoint per item.
+ */
+final class LedgerWriter implements Runnable {
+    private static final long IDLE_POLL_MILLIS = 250L;
+
+    private final Connection connection;
+    private final List<CommitLog> logs;
+    private final Logger logger;
+    private final BlockingQueue<WriteTask<?>> queue;
+    private final int capacity;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutMillis;
+    private final Thread thread;
+
+    private final AtomicInteger peakQueueDepth = new AtomicInteger();
+    private final AtomicLong batchesCommitted = new AtomicLong();
+    private final AtomicLong writesCommitted = new AtomicLong();
+    private final AtomicLong writesFailed = new AtomicLong();
+    private volatile long lastCommitMicros;
+    private volatile boolean closing;
+    private WriteTask<?> carryOver;
+
+    LedgerWriter(Connection connection, List<CommitLog> logs, LedgerSettings settings, Logger logger) {
+        this.connection = connection;
+        this.logs = List.copyOf(logs);
+        this.logger = logger;
+        this.capacity = settings.writeQueueCapacity();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = settings.groupCommitMaxBatch();
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.groupCommitMaxDelayMillis());
+        this.enqueueTimeoutMillis = settings.busyTimeoutMillis();
+        this.thread = new Thread(this, "CrystalMath-LedgerWriter");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    boolean isWriterThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    // Blocks for up to the busy timeout when the queue is full.
+    <T> CompletableFuture<T> submit(SqlWork<T> work) {
+        return enqueue(work, false);
+    }
+
+    // Runs alone, outside any transaction, once earlier writes have committed.
+    <T> CompletableFuture<T> submitStandalone(SqlWork<T> work) {
+        return enqueue(work, true);
+    }
+
+    private <T> CompletableFuture<T> enqueue(SqlWork<T> work, boolean standalone) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closing) {
+            future.completeExceptionally(new SQLException("Ledger writer has been shut down"));
+            return future;
+        }
+
+        WriteTask<T> task = new WriteTask<>(work, future, standalone);
+        try {
+            if (!queue.offer(task, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new SQLException("Ledger write queue is full (" + capacity + " pending writes)"));
+                return future;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new SQLException("Interrupted while queueing a ledger write", exception));
+            return future;
+        }
+
+        peakQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        return future;
+    }
+
+    WriteQueueMetrics metrics() {
+        long batches = batchesCommitted.get();
+        long writes = writesCommitted.get();
+        double averageBatch = batches == 0 ? 0.0D : (double) writes / batches;
+        return new WriteQueueMetrics(queue.size(), capacity, peakQueueDepth.get(), batches, writes,
+                writesFailed.get(), averageBatch, lastCommitMicros);
+    }
+
+    boolean shutdown(long timeoutMillis) {
+        closing = true;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (thread.isAlive()) {
+            thread.interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        List<WriteTask<?>> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            WriteTask<?> first = carryOver;
+            carryOver = null;
+            if (first == null) {
+                try {
+                    first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException exception) {
+                    first = queue.poll();
+                    if (first == null) {
+                        break;
+                    }
+                }
+            }
+
+            if (first == null) {
+                syncLogs(false);
+                if (closing) {
+                    break;
+                }
+                continue;
+            }
+
+            if (first.standalone) {
+                runStandalone(first);
+                continue;
+            }
+
+            batch.add(first);
+            fillBatch(batch);
+            commitBatch(batch);
+            batch.clear();
+        }
+
+        syncLogs(true);
+        WriteTask<?> leftover = carryOver;
+        carryOver = null;
+        if (leftover != null) {
+            leftover.future.completeExceptionally(new SQLException("Ledger writer stopped before the write was applied"));
+        }
+        while ((leftover = queue.poll()) != null) {
+            leftover.future.completeExceptionally(new SQLException("Ledger writer stopped before the write was applied"));
+        }
+    }
+
+    private void fillBatch(List<WriteTask<?>> batch) {
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatch) {
+            WriteTask<?> next = queue.poll();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0L || closing) {
+                    return;
+                }
+                try {
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException exception) {
+                    return;
+                }
+                if (next == null) {
+                    return;
+                }
+            }
+            if (next.standalone) {
+                carryOver = next;
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commitBatch(List<WriteTask<?>> batch) {
+        long started = System.nanoTime();
+        List<Object> results = new ArrayList<>(batch.size());
+        List<Throwable> failures = new ArrayList<>(batch.size());
+
+        try {
+            connection.setAutoCommit(false);
+        } catch (SQLException exception) {
+            failAll(batch, exception);
+            return;
+        }
+
+        try {
+            for (WriteTask<?> task : batch) {
+                Savepoint savepoint = connection.setSavepoint();
+                try {
+                    results.add(task.work.apply(connection));
+                    failures.add(null);
+                    connection.releaseSavepoint(savepoint);
+                    for (CommitLog log : logs) {
+                        log.keepTask();
+                    }
+                } catch (SQLException | RuntimeException exception) {
+                    connection.rollback(savepoint);
+                    connection.releaseSavepoint(savepoint);
+                    for (CommitLog log : logs) {
+                        log.discardTask();
+                    }
+                    results.add(null);
+                    failures.add(exception);
+                }
+            }
+            connection.commit();
+        } catch (SQLException exception) {
+            try {
+                connection.rollback();
+            } catch (SQLException rollbackException) {
+                logger.warning("Failed to roll back ledger batch: " + rollbackException.getMessage());
+            }
+            for (CommitLog log : logs) {
+                log.discardBatch();
+            }
+            restoreAutoCommit();
+            failAll(batch, exception);
+            return;
+        }
+
+        restoreAutoCommit();
+        appendLogs();
+        lastCommitMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        batchesCommitted.incrementAndGet();
+
+        for (int i = 0; i < batch.size(); i++) {
+            Throwable failure = failures.get(i);
+            if (failure == null) {
+                writesCommitted.incrementAndGet();
+                batch.get(i).complete(results.get(i));
+            } else {
+                writesFailed.incrementAndGet();
+                batch.get(i).future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void runStandalone(WriteTask<?> task) {
+        long started = System.nanoTime();
+        Object result;
+        try {
+            result = task.work.apply(connection);
+        } catch (SQLException | RuntimeException exception) {
+            // Statements run with auto-commit, so whatever succeeded before the failure is kept.
+            appendLogs();
+            writesFailed.incrementAndGet();
+            task.future.completeExceptionally(exception);
+            return;
+        }
+
+        appendLogs();
+        lastCommitMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started);
+        batchesCommitted.incrementAndGet();
+        writesCommitted.incrementAndGet();
+        task.complete(result);
+    }
+
+    private void appendLogs() {
+        for (CommitLog log : logs) {
+            log.keepTask();
+            try {
+                log.commitBatch();
+            } catch (IOException exception) {
+                logger.log(Level.SEVERE, "Failed to append committed writes to the " + log.name(), exception);
+            }
+        }
+    }
+
+    private void syncLogs(boolean force) {
+        for (CommitLog log : logs) {
+            try {
+                if (force) {
+                    log.sync();
+                } else {
+                    log.syncIfDue();
+                }
+            } catch (IOException exception) {
+                logger.log(Level.SEVERE, "Failed to sync the " + log.name(), exception);
+            }
+        }
+    }
+
+    private void failAll(List<WriteTask<?>> batch, SQLException exception) {
+        logger.log(Level.WARNING, "Ledger batch of " + batch.size() + " writes failed", exception);
+        writesFailed.addAndGet(batch.size());
+        for (WriteTask<?> task : batch) {
+            task.future.completeExceptionally(exception);
+        }
+    }
+
+    private void restoreAutoCommit() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException exception) {
+            logger.warning("Failed to restore auto-commit state: " + exception.getMessage());
+        }
+    }
+
+    private record WriteTask<T>(SqlWork<T> work, CompletableFuture<T> future, boolean standalone) {
+        @SuppressWarnings("unchecked")
+        private void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+}
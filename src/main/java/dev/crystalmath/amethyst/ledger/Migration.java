@@ -0,0 +1,19 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One numbered step of the ledger schema, applied once in its own transaction.
+ */
+public record Migration(int version, String description, Step step, boolean vacuumAfter) {
+
+    public Migration(int version, String description, Step step) {
+        this(version, description, step, false);
+    }
+
+    @FunctionalInterface
+    public interface Step {
+        void apply(Connection connection) throws SQLException;
+    }
+}
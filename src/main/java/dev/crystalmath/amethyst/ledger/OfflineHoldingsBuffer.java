@@ -0,0 +1,131 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Coalesces offline-holding snapshots and clears until the next flush, keeping the latest per player.
+ */
+public final class OfflineHoldingsBuffer {
+    private Map<UUID, Pending> pending = new LinkedHashMap<>();
+
+    // holdings is null when the player's rows should be cleared.
+    public record Pending(String playerName, Map<UUID, String> holdings) {
+    }
+
+    public synchronized void replace(UUID playerUuid, String playerName, Map<UUID, String> holdings) {
+        pending.put(playerUuid, new Pending(playerName, holdings));
+    }
+
+    public synchronized void clear(UUID playerUuid) {
+        pending.put(playerUuid, new Pending(null, null));
+    }
+
+    public synchronized Map<UUID, Pending> drain() {
+        Map<UUID, Pending> drained = pending;
+        pending = new LinkedHashMap<>();
+        return drained;
+    }
+
+    // A newer request for the same player wins over a restored one.
+    public synchronized void restore(Map<UUID, Pending> drained) {
+        drained.forEach(pending::putIfAbsent);
+    }
+
+    public synchronized boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    // Applied as a diff, so unchanged holdings cost no row writes.
+    public static int write(Connection connection, Map<UUID, Pending> requests) throws SQLException {
+        long now = Instant.now().getEpochSecond();
+        int changed = 0;
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT crystal_uuid, player_name, details FROM offline_crystals WHERE player_uuid = ?");
+             PreparedStatement clear = connection.prepareStatement(
+                     "DELETE FROM offline_crystals WHERE player_uuid = ?");
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM offline_crystals WHERE crystal_uuid = ? AND player_uuid = ?");
+             PreparedStatement upsert = connection.prepareStatement("""
+                     INSERT INTO offline_crystals (crystal_uuid, player_uuid, player_name, details, recorded_at)
+                     VALUES (?, ?, ?, ?, ?)
+                     ON CONFLICT (crystal_uuid) DO UPDATE
+                     SET player_uuid = excluded.player_uuid,
+                         player_name = excluded.player_name,
+                         details = excluded.details,
+                         recorded_at = excluded.recorded_at
+                     """)) {
+            for (Map.Entry<UUID, Pending> request : requests.entrySet()) {
+                byte[] playerKey = LedgerCodec.toBytes(request.getKey());
+                Pending target = request.getValue();
+
+                Map<UUID, Stored> stored = new HashMap<>();
+                select.setBytes(1, playerKey);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        stored.put(LedgerCodec.fromBytes(resultSet.getBytes(1)),
+                                new Stored(resultSet.getString(2), resultSet.getString(3)));
+                    }
+                }
+
+                if (target.holdings() == null || target.holdings().isEmpty()) {
+                    if (!stored.isEmpty()) {
+                        clear.setBytes(1, playerKey);
+                        changed += clear.executeUpdate();
+                    }
+                    continue;
+                }
+
+                for (UUID crystal : stored.keySet()) {
+                    if (!target.holdings().containsKey(crystal)) {
+                        delete.setBytes(1, LedgerCodec.toBytes(crystal));
+                        delete.setBytes(2, playerKey);
+                        delete.addBatch();
+                        changed++;
+                    }
+                }
+
+                for (Map.Entry<UUID, String> holding : target.holdings().entrySet()) {
+                    Stored current = stored.get(holding.getKey());
+                    if (current != null && Objects.equals(current.playerName(), target.playerName())
+                            && Objects.equals(current.details(), holding.getValue())) {
+                        continue;
+                    }
+
+                    upsert.setBytes(1, LedgerCodec.toBytes(holding.getKey()));
+                    upsert.setBytes(2, playerKey);
+                    setNullableString(upsert, 3, target.playerName());
+                    setNullableString(upsert, 4, holding.getValue());
+                    upsert.setLong(5, now);
+                    upsert.addBatch();
+                    changed++;
+                }
+            }
+
+            delete.executeBatch();
+            upsert.executeBatch();
+        }
+        return changed;
+    }
+
+    private static void setNullableString(PreparedStatement statement, int index, String value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.VARCHAR);
+        } else {
+            statement.setString(index, value);
+        }
+    }
+
+    private record Stored(String playerName, String details) {
+    }
+}
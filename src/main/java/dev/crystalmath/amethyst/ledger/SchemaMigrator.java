@@ -0,0 +1,93 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Brings a ledger database up to the latest schema version.
+ */
+public final class SchemaMigrator {
+    private final LedgerDatabase database;
+    private final Logger logger;
+
+    public SchemaMigrator(LedgerDatabase database, Logger logger) {
+        this.database = database;
+        this.logger = logger;
+    }
+
+    public int migrate(List<Migration> migrations) throws SQLException {
+        int current = database.write(connection -> {
+            createVersionTable(connection);
+            return currentVersion(connection);
+        });
+
+        List<Migration> pending = migrations.stream()
+                .filter(migration -> migration.version() > current)
+                .sorted(Comparator.comparingInt(Migration::version))
+                .toList();
+
+        int version = current;
+        for (Migration migration : pending) {
+            long started = System.nanoTime();
+            database.write(connection -> {
+                migration.step().apply(connection);
+                recordVersion(connection, migration);
+                return null;
+            });
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            logger.info("Applied ledger migration " + migration.version() + " (" + migration.description()
+                    + ") in " + elapsed + " ms.");
+            version = migration.version();
+        }
+
+        if (pending.stream().anyMatch(Migration::vacuumAfter)) {
+            long started = System.nanoTime();
+            database.writeStandalone(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("VACUUM");
+                }
+                return null;
+            });
+            logger.info("Compacted the ledger database in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + " ms.");
+        }
+        return version;
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INTEGER PRIMARY KEY,
+                        description TEXT NOT NULL,
+                        applied_at INTEGER NOT NULL
+                    )
+                    """);
+        }
+    }
+
+    private static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void recordVersion(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+            statement.setInt(1, migration.version());
+            statement.setString(2, migration.description());
+            statement.setLong(3, Instant.now().getEpochSecond());
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Appends slow statements with their parameters and query plan to {@code ledger-slow.log}.
+ */
+public final class SlowStatementLog {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 5_000L;
+
+    private final File file;
+    private final long maxBytes;
+    private final int keep;
+    private final ConnectionSource planConnections;
+    private final Logger logger;
+    private final AtomicLong dropped = new AtomicLong();
+    private final ThreadPoolExecutor executor;
+    private Connection planConnection;
+
+    @FunctionalInterface
+    public interface ConnectionSource {
+        Connection open() throws SQLException;
+    }
+
+    // parameters is null for batches, whose values are not kept.
+    public record Entry(long epochMillis, String operation, String sql, Object[] parameters, long micros,
+                        String thread) {
+    }
+
+    public SlowStatementLog(File file, long maxBytes, int keep, ConnectionSource planConnections, Logger logger) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.keep = keep;
+        this.planConnections = planConnections;
+        this.logger = logger;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "CrystalMath-LedgerSlowLog");
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> dropped.incrementAndGet());
+    }
+
+    void submit(Entry entry) {
+        executor.execute(() -> write(entry));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+                return;
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            return;
+        }
+        closePlanConnection();
+    }
+
+    private void write(Entry entry) {
+        StringBuilder text = new StringBuilder(512);
+        text.append(Instant.ofEpochMilli(entry.epochMillis())).append(' ')
+                .append(entry.operation()).append(" took ")
+                .append(String.format("%.1f", entry.micros() / 1000.0D)).append(" ms on ")
+                .append(entry.thread()).append('\n');
+        text.append("  sql: ").append(entry.sql().strip().replaceAll("\\s+", " ")).append('\n');
+        text.append("  params: ").append(formatParameters(entry.parameters())).append('\n');
+        text.append("  plan:\n").append(explain(entry));
+
+        long skipped = dropped.getAndSet(0L);
+        if (skipped > 0L) {
+            text.append("  (").append(skipped).append(" earlier slow statements were dropped, the log could not keep up)\n");
+        }
+        text.append('\n');
+
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            if (file.length() + bytes.length > maxBytes) {
+                rotate();
+            }
+            Files.write(file.toPath(), bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException exception) {
+            logger.warning("Unable to write to " + file.getName() + ": " + exception.getMessage());
+        }
+    }
+
+    private String explain(Entry entry) {
+        StringBuilder plan = new StringBuilder();
+        try {
+            if (planConnection == null) {
+                planConnection = planConnections.open();
+            }
+            try (PreparedStatement statement = planConnection.prepareStatement("EXPLAIN QUERY PLAN " + entry.sql())) {
+                bind(statement, entry.parameters());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        plan.append("    ").append(resultSet.getInt("id")).append(' ')
+                                .append(resultSet.getInt("parent")).append(' ')
+                                .append(resultSet.getString("detail")).append('\n');
+                    }
+                }
+            }
+        } catch (SQLException exception) {
+            return "    (unavailable: " + exception.getMessage() + ")\n";
+        }
+        return plan.isEmpty() ? "    (none)\n" : plan.toString();
+    }
+
+    // Rebinding the captured values lets the planner see the same constants the slow run did.
+    private static void bind(PreparedStatement statement, Object[] parameters) throws SQLException {
+        ParameterMetaData metadata = statement.getParameterMetaData();
+        int count = metadata.getParameterCount();
+        for (int i = 1; i <= count; i++) {
+            Object value = parameters != null && i <= parameters.length ? parameters[i - 1] : null;
+            statement.setObject(i, value);
+        }
+    }
+
+    private static String formatParameters(Object[] parameters) {
+        if (parameters == null) {
+            return "(batch)";
+        }
+
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            Object value = parameters[i];
+            if (value instanceof byte[] bytes) {
+                text.append(bytes.length == 16 ? LedgerCodec.fromBytes(bytes).toString() : "x'" + HexFormat.of().formatHex(bytes) + "'");
+            } else if (value instanceof String string) {
+                text.append('\'').append(string).append('\'');
+            } else {
+                text.append(value);
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    private void rotate() throws IOException {
+        for (int i = keep; i >= 1; i--) {
+            File source = i == 1 ? file : new File(file.getPath() + "." + (i - 1));
+            File target = new File(file.getPath() + "." + i);
+            if (source.exists()) {
+                Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private void closePlanConnection() {
+        if (planConnection == null) {
+            return;
+        }
+        try {
+            planConnection.close();
+        } catch (SQLException exception) {
+            logger.warning("Failed to close the slow-log plan connection: " + exception.getMessage());
+        }
+        planConnection = null;
+    }
+}
@@ -0,0 +1,9 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface SqlWork<T> {
+    T apply(Connection connection) throws SQLException;
+}
@@ -0,0 +1,92 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency histograms for ledger statements, grouped by SQL verb and table.
+ */
+public final class StatementTimings {
+    private static final int MAX_CACHED_LABELS = 1024;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, String> labels = new ConcurrentHashMap<>();
+    private final long slowThresholdNanos;
+    private final SlowStatementLog slowLog;
+
+    // slowThresholdMillis of 0 disables the slow log.
+    public StatementTimings(long slowThresholdMillis, SlowStatementLog slowLog) {
+        this.slowThresholdNanos = slowThresholdMillis <= 0L ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.slowLog = slowLog;
+    }
+
+    boolean isSlow(long nanos) {
+        return slowLog != null && nanos >= slowThresholdNanos;
+    }
+
+    // parameters is only read for slow statements and may be null, as for batches.
+    void record(String sql, Object[] parameters, long nanos) {
+        String operation = operation(sql);
+        histograms.computeIfAbsent(operation, ignored -> new LatencyHistogram())
+                .record(TimeUnit.NANOSECONDS.toMicros(nanos));
+        if (isSlow(nanos)) {
+            slowLog.submit(new SlowStatementLog.Entry(System.currentTimeMillis(), operation, sql, parameters,
+                    TimeUnit.NANOSECONDS.toMicros(nanos), Thread.currentThread().getName()));
+        }
+    }
+
+    public List<LatencySnapshot> snapshot() {
+        List<LatencySnapshot> snapshots = new ArrayList<>(histograms.size());
+        histograms.forEach((operation, histogram) -> snapshots.add(histogram.snapshot(operation)));
+        snapshots.sort(Comparator.comparingLong(LatencySnapshot::totalMicros).reversed());
+        return snapshots;
+    }
+
+    private String operation(String sql) {
+        String cached = labels.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+
+        String label = label(sql);
+        if (labels.size() < MAX_CACHED_LABELS) {
+            labels.put(sql, label);
+        }
+        return label;
+    }
+
+    private static String label(String sql) {
+        String[] tokens = sql.strip().split("[\\s(),;]+");
+        if (tokens.length == 0 || tokens[0].isEmpty()) {
+            return "?";
+        }
+
+        String verb = tokens[0].toUpperCase(Locale.ROOT);
+        if (verb.equals("UPDATE")) {
+            // UPDATE OR IGNORE puts the conflict clause before the table name.
+            int table = tokens.length > 3 && tokens[1].equalsIgnoreCase("OR") ? 3 : 1;
+            return table < tokens.length ? verb + " " + tokens[table] : verb;
+        }
+
+        String marker = switch (verb) {
+            case "SELECT", "DELETE" -> "FROM";
+            case "INSERT", "REPLACE" -> "INTO";
+            default -> null;
+        };
+        if (marker == null) {
+            return tokens.length > 1 ? verb + " " + tokens[1].toUpperCase(Locale.ROOT) : verb;
+        }
+
+        for (int i = 1; i < tokens.length - 1; i++) {
+            if (tokens[i].equalsIgnoreCase(marker)) {
+                return verb + " " + tokens[i + 1];
+            }
+        }
+        return verb;
+    }
+}
@@ -0,0 +1,163 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory mirror of the {@code supply_counters} table, applied only after the matching write commits.
+ */
+public final class SupplyCounters {
+    public static final int UNKNOWN = 0;
+    static final int STATUS_SLOTS = 5;
+
+    private final Map<Long, long[]> cells = new HashMap<>();
+
+    public record Delta(int area, int world, int status, int amount) {
+    }
+
+    public synchronized void load(Connection connection) throws SQLException {
+        cells.clear();
+        cells.putAll(stored(connection));
+    }
+
+    public synchronized void apply(List<Delta> deltas) {
+        for (Delta delta : deltas) {
+            cells.computeIfAbsent(key(delta.area(), delta.world()), ignored -> new long[STATUS_SLOTS])[delta.status()] += delta.amount();
+        }
+    }
+
+    public synchronized long[] totals() {
+        long[] totals = new long[STATUS_SLOTS];
+        for (long[] counts : cells.values()) {
+            add(totals, counts);
+        }
+        return totals;
+    }
+
+    public synchronized Map<Integer, long[]> byArea() {
+        Map<Integer, long[]> result = new HashMap<>();
+        cells.forEach((key, counts) -> add(result.computeIfAbsent(areaOf(key), ignored -> new long[STATUS_SLOTS]), counts));
+        return result;
+    }
+
+    public synchronized Map<Integer, long[]> byWorld(int area) {
+        Map<Integer, long[]> result = new HashMap<>();
+        cells.forEach((key, counts) -> {
+            if (areaOf(key) == area) {
+                add(result.computeIfAbsent(worldOf(key), ignored -> new long[STATUS_SLOTS]), counts);
+            }
+        });
+        return result;
+    }
+
+    public synchronized void replace(Map<Long, long[]> counts) {
+        cells.clear();
+        counts.forEach((key, values) -> cells.put(key, values.clone()));
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+    }
+
+    public static void persist(Connection connection, List<Delta> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        Map<List<Integer>, Integer> merged = new HashMap<>();
+        for (Delta delta : deltas) {
+            merged.merge(List.of(delta.area(), delta.world(), delta.status()), delta.amount(), Integer::sum);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT INTO supply_counters (area, world, status, total)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (area, world, status) DO UPDATE SET total = total + excluded.total
+                """)) {
+            for (Map.Entry<List<Integer>, Integer> entry : merged.entrySet()) {
+                if (entry.getValue() == 0) {
+                    continue;
+                }
+                statement.setInt(1, entry.getKey().get(0));
+                statement.setInt(2, entry.getKey().get(1));
+                statement.setInt(3, entry.getKey().get(2));
+                statement.setInt(4, entry.getValue());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    public static Map<Long, long[]> recount(Connection connection) throws SQLException {
+        return compute(connection, """
+                SELECT COALESCE(area, 0) AS area, COALESCE(origin_world, 0) AS world, status, COUNT(*) AS total
+                FROM (
+                    SELECT area, origin_world, status FROM crystals
+                    UNION ALL
+                    SELECT area, origin_world, status FROM crystals_archive
+                )
+                GROUP BY 1, 2, 3
+                """);
+    }
+
+    public static Map<Long, long[]> stored(Connection connection) throws SQLException {
+        return compute(connection, "SELECT area, world, status, total FROM supply_counters");
+    }
+
+    public static void overwrite(Connection connection, Map<Long, long[]> counts) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("DELETE FROM supply_counters");
+        }
+
+        List<Delta> rows = new ArrayList<>();
+        counts.forEach((key, values) -> {
+            for (int status = 0; status < STATUS_SLOTS; status++) {
+                if (values[status] != 0) {
+                    rows.add(new Delta(areaOf(key), worldOf(key), status, (int) values[status]));
+                }
+            }
+        });
+        persist(connection, rows);
+    }
+
+    public static int areaOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int worldOf(long key) {
+        return (int) key;
+    }
+
+    private static long key(int area, int world) {
+        return ((long) area << 32) | (world & 0xFFFFFFFFL);
+    }
+
+    private static Map<Long, long[]> compute(Connection connection, String sql) throws SQLException {
+        Map<Long, long[]> result = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                int status = resultSet.getInt("status");
+                if (status <= 0 || status >= STATUS_SLOTS) {
+                    continue;
+                }
+                result.computeIfAbsent(key(resultSet.getInt("area"), resultSet.getInt("world")),
+                        ignored -> new long[STATUS_SLOTS])[status] += resultSet.getLong("total");
+            }
+        }
+        return result;
+    }
+
+    private static void add(long[] target, long[] source) {
+        for (int i = 0; i < STATUS_SLOTS; i++) {
+            target[i] += source[i];
+        }
+    }
+}
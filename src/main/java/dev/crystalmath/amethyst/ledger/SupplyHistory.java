@@ -0,0 +1,109 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-status supply totals over time, kept in {@code supply_history} at raw, hourly and daily resolution.
+ */
+public final class SupplyHistory {
+    public static final int MAX_POINTS = 720;
+
+    private SupplyHistory() {
+    }
+
+    public enum Resolution {
+        RAW(0L),
+        HOURLY(TimeUnit.HOURS.toSeconds(1)),
+        DAILY(TimeUnit.DAYS.toSeconds(1));
+
+        private final long seconds;
+
+        Resolution(long seconds) {
+            this.seconds = seconds;
+        }
+
+        long bucketOf(long epochSecond) {
+            return seconds == 0L ? epochSecond : Math.floorDiv(epochSecond, seconds) * seconds;
+        }
+    }
+
+    public record Point(long bucket, long active, long held, long lost, long redeemed) {
+        public long total() {
+            return active + held + lost + redeemed;
+        }
+    }
+
+    public static void record(Connection connection, long now, long[] totals) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT INTO supply_history (resolution, bucket, active, held, lost, redeemed)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (resolution, bucket) DO UPDATE
+                SET active = excluded.active, held = excluded.held, lost = excluded.lost, redeemed = excluded.redeemed
+                """)) {
+            for (Resolution resolution : Resolution.values()) {
+                statement.setLong(1, resolution.seconds);
+                statement.setLong(2, resolution.bucketOf(now));
+                statement.setLong(3, totals[LedgerCodec.STATUS_ACTIVE]);
+                statement.setLong(4, totals[LedgerCodec.STATUS_HELD]);
+                statement.setLong(5, totals[LedgerCodec.STATUS_LOST]);
+                statement.setLong(6, totals[LedgerCodec.STATUS_REDEEMED]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    public static int prune(Connection connection, long now, LedgerSettings settings) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                DELETE FROM supply_history
+                WHERE resolution = ? AND bucket < ?
+                """)) {
+            statement.setLong(1, Resolution.RAW.seconds);
+            statement.setLong(2, now - TimeUnit.HOURS.toSeconds(settings.historyKeepRawHours()));
+            int pruned = statement.executeUpdate();
+
+            statement.setLong(1, Resolution.HOURLY.seconds);
+            statement.setLong(2, now - TimeUnit.DAYS.toSeconds(settings.historyKeepHourlyDays()));
+            return pruned + statement.executeUpdate();
+        }
+    }
+
+    public static Resolution resolutionFor(long rangeSeconds, LedgerSettings settings) {
+        if (settings.historyEnabled() && rangeSeconds <= TimeUnit.HOURS.toSeconds(settings.historyKeepRawHours())
+                && rangeSeconds / settings.historySampleSeconds() <= MAX_POINTS) {
+            return Resolution.RAW;
+        }
+        if (rangeSeconds <= TimeUnit.DAYS.toSeconds(settings.historyKeepHourlyDays())
+                && rangeSeconds / Resolution.HOURLY.seconds <= MAX_POINTS) {
+            return Resolution.HOURLY;
+        }
+        return Resolution.DAILY;
+    }
+
+    public static List<Point> query(Connection connection, Resolution resolution, long since) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT bucket, active, held, lost, redeemed
+                FROM supply_history
+                WHERE resolution = ? AND bucket >= ?
+                ORDER BY bucket
+                """)) {
+            statement.setLong(1, resolution.seconds);
+            statement.setLong(2, resolution.bucketOf(since));
+
+            List<Point> points = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    points.add(new Point(resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3),
+                            resultSet.getLong(4), resultSet.getLong(5)));
+                }
+            }
+            return points;
+        }
+    }
+}
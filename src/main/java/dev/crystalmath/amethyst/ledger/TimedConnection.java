@@ -0,0 +1,108 @@
+package dev.crystalmath.amethyst.ledger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.TreeMap;
+
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.invoke;
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.isExecute;
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.isExecuteBatch;
+import static dev.crystalmath.amethyst.ledger.JdbcProxies.proxy;
+
+/**
+ * Wraps a ledger connection so every statement it runs is timed into {@link StatementTimings}.
+ */
+final class TimedConnection {
+    private static final Object[] NO_PARAMETERS = new Object[0];
+
+    private TimedConnection() {
+    }
+
+    static Connection wrap(Connection connection, StatementTimings timings) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement) {
+                return wrapPrepared(statement, (String) args[0], timings);
+            }
+            if (method.getName().equals("createStatement") && result instanceof Statement statement) {
+                return wrapStatement(statement, timings);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement wrapPrepared(PreparedStatement statement, String sql, StatementTimings timings) {
+        TreeMap<Integer, Object> parameters = new TreeMap<>();
+        return proxy(PreparedStatement.class, statement, (target, method, args) -> {
+            String name = method.getName();
+            JdbcProxies.trackParameter(parameters, name, args);
+
+            boolean batch = isExecuteBatch(name);
+            if (!batch && !(args == null && isExecute(name))) {
+                return invoke(target, method, args);
+            }
+
+            long started = System.nanoTime();
+            Object result = invoke(target, method, args);
+            long elapsed = System.nanoTime() - started;
+            if (result instanceof ResultSet resultSet) {
+                return timeRows(resultSet, sql, parameters, elapsed, timings);
+            }
+            timings.record(sql, batch ? null : slowParameters(parameters, elapsed, timings), elapsed);
+            return result;
+        });
+    }
+
+    private static Statement wrapStatement(Statement statement, StatementTimings timings) {
+        return proxy(Statement.class, statement, (target, method, args) -> {
+            if (!(args != null && args.length >= 1 && args[0] instanceof String sql && isExecute(method.getName()))) {
+                return invoke(target, method, args);
+            }
+
+            long started = System.nanoTime();
+            Object result = invoke(target, method, args);
+            long elapsed = System.nanoTime() - started;
+            if (result instanceof ResultSet resultSet) {
+                return timeRows(resultSet, sql, null, elapsed, timings);
+            }
+            timings.record(sql, NO_PARAMETERS, elapsed);
+            return result;
+        });
+    }
+
+    // parameters is null for plain statements, which bind none.
+    private static ResultSet timeRows(ResultSet resultSet, String sql, TreeMap<Integer, Object> parameters,
+                                      long executeNanos, StatementTimings timings) {
+        long[] elapsed = {executeNanos};
+        boolean[] recorded = {false};
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            String name = method.getName();
+            if (name.equals("next")) {
+                long started = System.nanoTime();
+                Object result = invoke(target, method, args);
+                elapsed[0] += System.nanoTime() - started;
+                if (Boolean.FALSE.equals(result) && !recorded[0]) {
+                    recorded[0] = true;
+                    timings.record(sql, slowParameters(parameters, elapsed[0], timings), elapsed[0]);
+                }
+                return result;
+            }
+
+            if (name.equals("close") && !recorded[0]) {
+                recorded[0] = true;
+                timings.record(sql, slowParameters(parameters, elapsed[0], timings), elapsed[0]);
+            }
+            return invoke(target, method, args);
+        });
+    }
+
+    // The bound values, copied only for statements slow enough for the slow log to keep them.
+    private static Object[] slowParameters(TreeMap<Integer, Object> parameters, long nanos, StatementTimings timings) {
+        if (!timings.isSlow(nanos)) {
+            return null;
+        }
+        return parameters == null ? NO_PARAMETERS : JdbcProxies.snapshot(parameters);
+    }
+}
@@ -0,0 +1,11 @@
+package dev.crystalmath.amethyst.ledger;
+
+public record WriteQueueMetrics(int queueDepth,
+                                int queueCapacity,
+                                int peakQueueDepth,
+                                long batchesCommitted,
+                                long writesCommitted,
+                                long writesFailed,
+                                double averageBatchSize,
+                                long lastCommitMicros) {
+}
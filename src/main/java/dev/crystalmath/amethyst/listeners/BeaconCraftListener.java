@@ -2,7 +2,6 @@ package dev.crystalmath.amethyst.listeners;
 
 import dev.crystalmath.amethyst.MintLedger;
 import dev.crystalmath.amethyst.util.MintedCrystalUtil;
-import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
@@ -82,19 +81,16 @@ public class BeaconCraftListener implements Listener {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            for (UUID uuid : consumed) {
-                try {
-                    boolean updated = ledger.markRedeemed(uuid, MintLedger.EVENT_CRAFT_BEACON,
-                            formatDetails(crafter, location));
-                    if (updated) {
-                        plugin.getLogger().info("Ledger crystal " + uuid + " redeemed via beacon craft by " + crafter + ".");
-                    }
-                } catch (MintLedger.LedgerException exception) {
-                    plugin.getLogger().warning("Failed to mark crystal " + uuid + " redeemed after beacon craft: " + exception.getMessage());
+        String details = formatDetails(crafter, location);
+        for (UUID uuid : consumed) {
+            ledger.markRedeemedAsync(uuid, MintLedger.EVENT_CRAFT_BEACON, details).whenComplete((updated, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Failed to mark crystal " + uuid + " redeemed after beacon craft: " + error.getMessage());
+                } else if (updated) {
+                    plugin.getLogger().info("Ledger crystal " + uuid + " redeemed via beacon craft by " + crafter + ".");
                 }
-            }
-        });
+            });
+        }
     }
 
     private String formatDetails(String crafter, Location location) {
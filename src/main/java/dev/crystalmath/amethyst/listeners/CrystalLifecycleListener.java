@@ -180,27 +180,15 @@ public class CrystalLifecycleListener implements Listener {
     }
 
     private void markLostAtLocation(Location location) {
-        Location snapshot = location.clone();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            Optional<MintLedger.LedgerEntry> entryOptional;
-            try {
-                entryOptional = ledger.findActiveByLocation(snapshot);
-            } catch (MintLedger.LedgerException exception) {
-                plugin.getLogger().warning("Failed to lookup crystal at " + snapshot + ": " + exception.getMessage());
-                return;
-            }
-
-            if (entryOptional.isEmpty()) {
-                return;
-            }
+        Optional<MintLedger.LedgerEntry> entryOptional;
+        try {
+            entryOptional = ledger.findActiveByLocation(location);
+        } catch (MintLedger.LedgerException exception) {
+            plugin.getLogger().warning("Failed to lookup crystal at " + location + ": " + exception.getMessage());
+            return;
+        }
 
-            UUID uuid = entryOptional.get().uuid();
-            try {
-                ledger.markLost(uuid, snapshot);
-            } catch (MintLedger.LedgerException exception) {
-                plugin.getLogger().warning("Failed to update crystal " + uuid + " to LOST: " + exception.getMessage());
-            }
-        });
+        entryOptional.ifPresent(entry -> markLost(entry.uuid(), location));
     }
 
     private void markLost(UUID uuid) {
@@ -208,12 +196,9 @@ public class CrystalLifecycleListener implements Listener {
     }
 
     private void markLost(UUID uuid, Location location) {
-        Location snapshot = location == null ? null : location.clone();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try {
-                ledger.markLost(uuid, snapshot);
-            } catch (MintLedger.LedgerException exception) {
-                plugin.getLogger().warning("Failed to update crystal " + uuid + " to LOST: " + exception.getMessage());
+        ledger.markLostAsync(uuid, location).whenComplete((updated, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Failed to update crystal " + uuid + " to LOST: " + error.getMessage());
             }
         });
     }
@@ -317,28 +302,25 @@ public class CrystalLifecycleListener implements Listener {
             return;
         }
 
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            for (Map.Entry<UUID, Location> entry : voidLosses.entrySet()) {
-                try {
-                    ledger.markLostWithEvent(entry.getKey(), entry.getValue(), MintLedger.EVENT_VOID_LOSS,
-                            describeLocation(entry.getValue()));
-                } catch (MintLedger.LedgerException exception) {
-                    plugin.getLogger().warning("Failed to update crystal " + entry.getKey()
-                            + " after void sweep: " + exception.getMessage());
+        for (Map.Entry<UUID, Location> entry : voidLosses.entrySet()) {
+            UUID uuid = entry.getKey();
+            ledger.markLostWithEventAsync(uuid, entry.getValue(), MintLedger.EVENT_VOID_LOSS,
+                    describeLocation(entry.getValue())).whenComplete((updated, error) -> {
+                if (error != null) {
+                    plugin.getLogger().warning("Failed to update crystal " + uuid
+                            + " after void sweep: " + error.getMessage());
                 }
-            }
-        });
+            });
+        }
     }
 
     private void markVoidLoss(UUID uuid, Location location) {
-        Location snapshot = location == null ? null : location.clone();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try {
-                ledger.markLostWithEvent(uuid, snapshot, MintLedger.EVENT_VOID_LOSS, describeLocation(snapshot));
-            } catch (MintLedger.LedgerException exception) {
-                plugin.getLogger().warning("Failed to update crystal " + uuid + " for void loss: " + exception.getMessage());
-            }
-        });
+        ledger.markLostWithEventAsync(uuid, location, MintLedger.EVENT_VOID_LOSS, describeLocation(location))
+                .whenComplete((updated, error) -> {
+                    if (error != null) {
+                        plugin.getLogger().warning("Failed to update crystal " + uuid + " for void loss: " + error.getMessage());
+                    }
+                });
     }
 
     private String describeLocation(Location location) {
@@ -58,26 +58,21 @@ public class FortuneListener implements Listener {
             UUID uuid = entry.uuid();
 
             event.setDropItems(false);
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                boolean markedHeld;
-                try {
-                    markedHeld = ledger.markHeld(uuid);
-                } catch (MintLedger.LedgerException exception) {
-                    Bukkit.getScheduler().runTask(plugin, () -> player.sendMessage(ChatColor.RED + "Warning: Failed to update the ledger for this crystal. Contact an administrator."));
+            ledger.markHeldAsync(uuid).whenComplete((markedHeld, error) -> Bukkit.getScheduler().runTask(plugin, () -> {
+                if (error != null) {
+                    player.sendMessage(ChatColor.RED + "Warning: Failed to update the ledger for this crystal. Contact an administrator.");
                     return;
                 }
 
                 if (!markedHeld) {
-                    Bukkit.getScheduler().runTask(plugin, () -> player.sendMessage(ChatColor.RED + "This crystal could not be moved to HELD status. Check the ledger."));
+                    player.sendMessage(ChatColor.RED + "This crystal could not be moved to HELD status. Check the ledger.");
                     return;
                 }
 
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    ItemStack drop = new ItemStack(Material.AMETHYST_SHARD, 1);
-                    MintedCrystalUtil.applyMetadata(drop, uuid, crystalKey);
-                    block.getWorld().dropItemNaturally(location, drop);
-                });
-            });
+                ItemStack drop = new ItemStack(Material.AMETHYST_SHARD, 1);
+                MintedCrystalUtil.applyMetadata(drop, uuid, crystalKey);
+                block.getWorld().dropItemNaturally(location, drop);
+            }));
             return;
         }
 
@@ -2,7 +2,6 @@ package dev.crystalmath.amethyst.listeners;
 
 import dev.crystalmath.amethyst.MintLedger;
 import dev.crystalmath.amethyst.util.MintedCrystalUtil;
-import org.bukkit.Bukkit;
 import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -40,26 +39,21 @@ public class OfflineCrystalListener implements Listener {
         capture(contexts, player.getInventory().getContents(), slot -> "Inventory slot " + slot);
         capture(contexts, player.getEnderChest().getContents(), slot -> "Ender chest slot " + slot);
 
-        Map<UUID, List<String>> payload = contexts.isEmpty() ? Map.of() : contexts;
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try {
-                ledger.replaceOfflineHoldings(player.getUniqueId(), player.getName(), payload);
-            } catch (MintLedger.LedgerException exception) {
-                plugin.getLogger().warning("Failed to record offline holdings for " + player.getName() + ": " + exception.getMessage());
-            }
-        });
+        try {
+            ledger.queueOfflineHoldings(player.getUniqueId(), player.getName(), contexts);
+        } catch (MintLedger.LedgerException exception) {
+            plugin.getLogger().warning("Failed to record offline holdings for " + player.getName() + ": " + exception.getMessage());
+        }
     }
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onPlayerJoin(PlayerJoinEvent event) {
         Player player = event.getPlayer();
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-            try {
-                ledger.clearOfflineHoldings(player.getUniqueId());
-            } catch (MintLedger.LedgerException exception) {
-                plugin.getLogger().warning("Failed to clear offline holdings for " + player.getName() + ": " + exception.getMessage());
-            }
-        });
+        try {
+            ledger.queueOfflineHoldingsClear(player.getUniqueId());
+        } catch (MintLedger.LedgerException exception) {
+            plugin.getLogger().warning("Failed to clear offline holdings for " + player.getName() + ": " + exception.getMessage());
+        }
     }
 
     private void capture(Map<UUID, List<String>> contexts,
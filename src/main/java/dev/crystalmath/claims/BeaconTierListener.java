@@ -0,0 +1,94 @@
+package dev.crystalmath.claims;
+
+import org.bukkit.Bukkit;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drops cached beacon tiers when pyramid blocks change, and again next tick since most events fire first.
+ */
+public class BeaconTierListener implements Listener {
+    private final JavaPlugin plugin;
+    private final ClaimManager claimManager;
+
+    public BeaconTierListener(JavaPlugin plugin, ClaimManager claimManager) {
+        this.plugin = plugin;
+        this.claimManager = claimManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlace(BlockPlaceEvent event) {
+        invalidate(event.getBlockPlaced());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBreak(BlockBreakEvent event) {
+        invalidate(event.getBlock());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent event) {
+        invalidate(event.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent event) {
+        invalidate(moved(event.getBlocks(), event.getDirection()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent event) {
+        invalidate(moved(event.getBlocks(), event.getDirection()));
+    }
+
+    private void invalidate(Block block) {
+        if (claimManager.invalidateBeaconTier(block)) {
+            Bukkit.getScheduler().runTask(plugin, () -> claimManager.invalidateBeaconTier(block));
+        }
+    }
+
+    // Only blocks that dropped a cached tier are kept for the next tick.
+    private void invalidate(List<Block> blocks) {
+        List<Block> touched = null;
+        for (Block block : blocks) {
+            if (claimManager.invalidateBeaconTier(block)) {
+                if (touched == null) {
+                    touched = new ArrayList<>();
+                }
+                touched.add(block);
+            }
+        }
+        if (touched != null) {
+            List<Block> changed = touched;
+            Bukkit.getScheduler().runTask(plugin, () -> changed.forEach(claimManager::invalidateBeaconTier));
+        }
+    }
+
+    // Both the blocks a piston moves and the spots they land on.
+    private List<Block> moved(List<Block> blocks, BlockFace direction) {
+        List<Block> touched = new ArrayList<>(blocks.size() * 2);
+        for (Block block : blocks) {
+            touched.add(block);
+            touched.add(block.getRelative(direction));
+        }
+        return touched;
+    }
+}
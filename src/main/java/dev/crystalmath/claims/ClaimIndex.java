@@ -0,0 +1,244 @@
+package dev.crystalmath.claims;
+
+import dev.crystalmath.claims.model.ChunkPosition;
+import dev.crystalmath.claims.model.Claim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copy-on-write per-world chunk grid listing each claim under every chunk it can reach.
+ */
+final class ClaimIndex {
+    private volatile Map<String, ChunkGrid> grids = Map.of();
+
+    Claim find(String world, double x, double y, double z) {
+        ChunkGrid grid = grids.get(world);
+        if (grid == null) {
+            return null;
+        }
+        Claim[] candidates = grid.get((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+        if (candidates == null) {
+            return null;
+        }
+        for (Claim claim : candidates) {
+            if (claim.contains(x, y, z)) {
+                return claim;
+            }
+        }
+        return null;
+    }
+
+    // The array is shared with the grid and must not be modified.
+    Claim[] candidates(String world, int chunkX, int chunkZ) {
+        ChunkGrid grid = grids.get(world);
+        return grid == null ? null : grid.get(chunkX, chunkZ);
+    }
+
+    synchronized void replaceAll(Collection<Claim> claims) {
+        Map<String, Map<Long, List<Claim>>> cellsByWorld = new HashMap<>();
+        for (Claim claim : claims) {
+            Map<Long, List<Claim>> cells = cellsByWorld.computeIfAbsent(claim.getWorld(), ignored -> new HashMap<>());
+            for (long key : coveredChunks(claim)) {
+                cells.computeIfAbsent(key, ignored -> new ArrayList<>(2)).add(claim);
+            }
+        }
+        Map<String, ChunkGrid> next = new HashMap<>();
+        for (Map.Entry<String, Map<Long, List<Claim>>> world : cellsByWorld.entrySet()) {
+            ChunkGrid grid = new ChunkGrid(world.getValue().size());
+            for (Map.Entry<Long, List<Claim>> cell : world.getValue().entrySet()) {
+                grid.put(cell.getKey(), cell.getValue().toArray(new Claim[0]));
+            }
+            next.put(world.getKey(), grid);
+        }
+        grids = Map.copyOf(next);
+    }
+
+    synchronized void add(Claim claim) {
+        ChunkGrid current = grids.get(claim.getWorld());
+        Set<Long> covered = coveredChunks(claim);
+        ChunkGrid grid = current == null ? new ChunkGrid(covered.size()) : current.copy(covered.size());
+        for (long key : covered) {
+            Claim[] existing = grid.get(key);
+            if (existing == null) {
+                grid.put(key, new Claim[]{claim});
+            } else {
+                Claim[] grown = Arrays.copyOf(existing, existing.length + 1);
+                grown[existing.length] = claim;
+                grid.put(key, grown);
+            }
+        }
+        publish(claim.getWorld(), grid);
+    }
+
+    synchronized void remove(Claim claim) {
+        ChunkGrid current = grids.get(claim.getWorld());
+        if (current == null) {
+            return;
+        }
+        ChunkGrid grid = current.copy(0);
+        for (long key : coveredChunks(claim)) {
+            Claim[] existing = grid.get(key);
+            if (existing == null) {
+                continue;
+            }
+            Claim[] remaining = new Claim[existing.length];
+            int count = 0;
+            for (Claim listed : existing) {
+                if (listed != claim) {
+                    remaining[count++] = listed;
+                }
+            }
+            if (count == 0) {
+                grid.delete(key);
+            } else if (count < existing.length) {
+                grid.put(key, Arrays.copyOf(remaining, count));
+            }
+        }
+        publish(claim.getWorld(), grid.isEmpty() ? null : grid);
+    }
+
+    synchronized void clear() {
+        grids = Map.of();
+    }
+
+    private void publish(String world, ChunkGrid grid) {
+        Map<String, ChunkGrid> next = new HashMap<>(grids);
+        if (grid == null) {
+            next.remove(world);
+        } else {
+            next.put(world, grid);
+        }
+        grids = Map.copyOf(next);
+    }
+
+    // The bounding square of the protection sphere or iron pyramid plus the claimed chunks, as packed keys.
+    private static Set<Long> coveredChunks(Claim claim) {
+        Set<Long> keys = new HashSet<>();
+        double radius = Math.max(claim.getRadius(), ClaimManager.MAX_IRON_LAYERS + 0.5D);
+        double centerX = claim.getBeacon().getX() + 0.5D;
+        double centerZ = claim.getBeacon().getZ() + 0.5D;
+        int minChunkX = (int) Math.floor((centerX - radius) / 16.0D);
+        int maxChunkX = (int) Math.floor((centerX + radius) / 16.0D);
+        int minChunkZ = (int) Math.floor((centerZ - radius) / 16.0D);
+        int maxChunkZ = (int) Math.floor((centerZ + radius) / 16.0D);
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                keys.add(pack(chunkX, chunkZ));
+            }
+        }
+        for (ChunkPosition chunk : claim.getChunks()) {
+            keys.add(pack(chunk.getX(), chunk.getZ()));
+        }
+        return keys;
+    }
+
+    private static long pack(int chunkX, int chunkZ) {
+        return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+    }
+
+    // Linear probing, at most half full; only modified before it is published.
+    private static final class ChunkGrid {
+        private final long[] keys;
+        private final Claim[][] values;
+        private final int mask;
+        private int size;
+
+        ChunkGrid(int expectedCells) {
+            int capacity = Integer.highestOneBit(Math.max(4, expectedCells * 2 - 1)) << 1;
+            keys = new long[capacity];
+            values = new Claim[capacity][];
+            mask = capacity - 1;
+        }
+
+        // A private copy with room for extraCells more cells.
+        ChunkGrid copy(int extraCells) {
+            if ((size + extraCells) * 2 > keys.length) {
+                ChunkGrid grown = new ChunkGrid(size + extraCells);
+                for (int slot = 0; slot < keys.length; slot++) {
+                    if (values[slot] != null) {
+                        grown.put(keys[slot], values[slot]);
+                    }
+                }
+                return grown;
+            }
+            return new ChunkGrid(this);
+        }
+
+        private ChunkGrid(ChunkGrid source) {
+            keys = source.keys.clone();
+            values = source.values.clone();
+            mask = source.mask;
+            size = source.size;
+        }
+
+        Claim[] get(int chunkX, int chunkZ) {
+            return get(pack(chunkX, chunkZ));
+        }
+
+        Claim[] get(long key) {
+            int slot = slot(key);
+            Claim[] value;
+            while ((value = values[slot]) != null) {
+                if (keys[slot] == key) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        void put(long key, Claim[] value) {
+            int slot = slot(key);
+            while (values[slot] != null) {
+                if (keys[slot] == key) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        // Backward-shift deletion, so later probes never stop at a hole.
+        void delete(long key) {
+            int slot = slot(key);
+            while (values[slot] != null && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (values[slot] == null) {
+                return;
+            }
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (values[next] != null) {
+                int home = slot(keys[next]);
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    values[hole] = values[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            values[hole] = null;
+            size--;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        private int slot(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ hash >>> 32) & mask;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package dev.crystalmath.claims;
 
 import dev.crystalmath.CrystalMathPlugin;
+import dev.crystalmath.amethyst.MintLedger;
 import dev.crystalmath.claims.model.BlockPosition;
 import dev.crystalmath.claims.model.ChunkPosition;
 import dev.crystalmath.claims.model.Claim;
-import dev.crystalmath.claims.storage.SimpleJson;
+import dev.crystalmath.claims.storage.ClaimStore;
+import dev.crystalmath.claims.storage.LegacyClaimFiles;
 import org.bukkit.Bukkit;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
@@ -16,70 +18,45 @@ import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @SuppressWarnings("unchecked")
 public class ClaimManager {
+    /** Iron layers counted below a beacon; blocks further away never change its tier. */
+    static final int MAX_IRON_LAYERS = 4;
+    private static final int IMPORT_BATCH = 1000;
+
     private final CrystalMathPlugin plugin;
     private final Map<String, Claim> claimsByBeacon = new ConcurrentHashMap<>();
-    private final Map<ChunkPosition, Set<Claim>> claimsByChunk = new ConcurrentHashMap<>();
+    private final ClaimIndex index = new ClaimIndex();
+    private final Map<Claim, BeaconTier> tiers = new ConcurrentHashMap<>();
+    private final ClaimStore store;
 
-    public ClaimManager(CrystalMathPlugin plugin) {
+    public ClaimManager(CrystalMathPlugin plugin, MintLedger ledger) {
         this.plugin = plugin;
+        this.store = new ClaimStore(ledger);
     }
 
     public void load() {
         claimsByBeacon.clear();
-        claimsByChunk.clear();
-        File dataFolder = plugin.getDataFolder();
-        if (!dataFolder.exists()) {
-            dataFolder.mkdirs();
-        }
-        File file = new File(dataFolder, "claims.json");
-        if (!file.exists()) {
-            return;
-        }
+        index.clear();
+        tiers.clear();
+        importLegacyClaims();
         try {
-            String json = Files.readString(file.toPath(), StandardCharsets.UTF_8);
-            Object parsed = SimpleJson.parse(json);
-            if (!(parsed instanceof List<?> list)) {
-                return;
-            }
-            for (Object entry : list) {
-                if (!(entry instanceof Map<?, ?> map)) {
-                    continue;
-                }
-                Claim claim = readClaim((Map<String, Object>) map);
-                if (claim != null) {
-                    addClaimInternal(claim, false);
-                }
+            for (ClaimStore.StoredClaim stored : store.loadAll()) {
+                Claim claim = fromStored(stored);
+                claimsByBeacon.put(claim.getBeaconKey(), claim);
             }
-        } catch (IOException e) {
+            index.replaceAll(claimsByBeacon.values());
+        } catch (MintLedger.LedgerException e) {
             plugin.getLogger().severe("Failed to load claims: " + e.getMessage());
         }
     }
 
-    public void save() {
-        File dataFolder = plugin.getDataFolder();
-        if (!dataFolder.exists()) {
-            dataFolder.mkdirs();
-        }
-        File file = new File(dataFolder, "claims.json");
-        List<Map<String, Object>> serialized = claimsByBeacon.values().stream()
-                .map(this::writeClaim)
-                .collect(Collectors.toList());
-        try {
-            String json = SimpleJson.stringify(serialized);
-            Files.writeString(file.toPath(), json, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            plugin.getLogger().severe("Failed to save claims: " + e.getMessage());
-        }
-    }
-
     public Optional<Claim> getClaimByBeacon(Block block) {
         if (block == null) {
             return Optional.empty();
@@ -92,19 +69,7 @@ public class ClaimManager {
         if (location == null || location.getWorld() == null) {
             return Optional.empty();
         }
-        ChunkPosition chunk = ChunkPosition.fromLocation(location);
-        Set<Claim> candidates = claimsByChunk.get(chunk);
-        if (candidates != null) {
-            Optional<Claim> directHit = candidates.stream()
-                    .filter(claim -> claim.contains(location))
-                    .findFirst();
-            if (directHit.isPresent()) {
-                return directHit;
-            }
-        }
-        return claimsByBeacon.values().stream()
-                .filter(claim -> claim.contains(location))
-                .findFirst();
+        return Optional.ofNullable(index.find(location.getWorld().getName(), location.getX(), location.getY(), location.getZ()));
     }
 
     public Collection<Claim> getClaims() {
@@ -130,7 +95,8 @@ public class ClaimManager {
         }
         Claim claim = new Claim(player.getUniqueId(), block.getWorld().getName(), BlockPosition.fromBlock(block), computeChunks(block));
         addClaimInternal(claim, true);
-        save();
+        ClaimStore.StoredClaim stored = toStored(claim);
+        persist(() -> store.saveAsync(stored));
         player.sendMessage("§aClaim created. Protected radius: " + (int) claim.getRadius() + " blocks.");
         return true;
     }
@@ -144,8 +110,10 @@ public class ClaimManager {
         if (claim == null) {
             return false;
         }
-        removeFromChunkIndex(claim);
-        save();
+        index.remove(claim);
+        tiers.remove(claim);
+        BlockPosition beacon = claim.getBeacon();
+        persist(() -> store.deleteAsync(claim.getWorld(), beacon.getX(), beacon.getY(), beacon.getZ()));
         return true;
     }
 
@@ -154,7 +122,9 @@ public class ClaimManager {
             return;
         }
         if (claim.getTrusted().add(target.getUniqueId())) {
-            save();
+            BlockPosition beacon = claim.getBeacon();
+            persist(() -> store.trustAsync(claim.getWorld(), beacon.getX(), beacon.getY(), beacon.getZ(),
+                    target.getUniqueId()));
         }
     }
 
@@ -163,7 +133,9 @@ public class ClaimManager {
             return;
         }
         if (claim.getTrusted().remove(target.getUniqueId())) {
-            save();
+            BlockPosition beacon = claim.getBeacon();
+            persist(() -> store.untrustAsync(claim.getWorld(), beacon.getX(), beacon.getY(), beacon.getZ(),
+                    target.getUniqueId()));
         }
     }
 
@@ -171,14 +143,17 @@ public class ClaimManager {
         if (chunk == null) {
             return Optional.empty();
         }
-        Set<Claim> candidates = claimsByChunk.get(ChunkPosition.fromChunk(chunk));
-        if (candidates == null || candidates.isEmpty()) {
+        Claim[] candidates = index.candidates(chunk.getWorld().getName(), chunk.getX(), chunk.getZ());
+        if (candidates == null) {
             return Optional.empty();
         }
         ChunkPosition target = ChunkPosition.fromChunk(chunk);
-        return candidates.stream()
-                .filter(claim -> claim.getChunks().contains(target))
-                .findFirst();
+        for (Claim claim : candidates) {
+            if (claim.getChunks().contains(target)) {
+                return Optional.of(claim);
+            }
+        }
+        return Optional.empty();
     }
 
     public Optional<Claim> getClaimByKey(String key) {
@@ -189,23 +164,49 @@ public class ClaimManager {
         if (claim == null) {
             return BeaconTier.NONE;
         }
+        BeaconTier cached = tiers.get(claim);
+        if (cached != null) {
+            return cached;
+        }
         World world = Bukkit.getWorld(claim.getWorld());
         if (world == null) {
             return BeaconTier.NONE;
         }
         Block beaconBlock = world.getBlockAt(claim.getBeacon().getX(), claim.getBeacon().getY(), claim.getBeacon().getZ());
-        if (beaconBlock.getType() != Material.BEACON) {
-            return BeaconTier.NONE;
+        BeaconTier tier = beaconBlock.getType() == Material.BEACON
+                ? BeaconTier.fromIronLayers(countIronLayers(beaconBlock))
+                : BeaconTier.NONE;
+        tiers.put(claim, tier);
+        return tier;
+    }
+
+    /**
+     * Forgets the cached tiers whose pyramid contains {@code block}; true if any was dropped.
+     */
+    public boolean invalidateBeaconTier(Block block) {
+        Claim[] candidates = index.candidates(block.getWorld().getName(), block.getX() >> 4, block.getZ() >> 4);
+        if (candidates == null) {
+            return false;
+        }
+        boolean dropped = false;
+        for (Claim claim : candidates) {
+            BlockPosition beacon = claim.getBeacon();
+            int below = beacon.getY() - block.getY();
+            if (below >= 0 && below <= MAX_IRON_LAYERS
+                    && Math.abs(block.getX() - beacon.getX()) <= MAX_IRON_LAYERS
+                    && Math.abs(block.getZ() - beacon.getZ()) <= MAX_IRON_LAYERS) {
+                dropped |= tiers.remove(claim) != null;
+            }
         }
-        int ironLayers = countIronLayers(beaconBlock);
-        return BeaconTier.fromIronLayers(ironLayers);
+        return dropped;
     }
 
     private void addClaimInternal(Claim claim, boolean announce) {
-        claimsByBeacon.put(claim.getBeaconKey(), claim);
-        for (ChunkPosition chunkPosition : computeIndexedChunks(claim)) {
-            claimsByChunk.computeIfAbsent(chunkPosition, ignored -> ConcurrentHashMap.newKeySet()).add(claim);
+        Claim previous = claimsByBeacon.put(claim.getBeaconKey(), claim);
+        if (previous != null) {
+            index.remove(previous);
         }
+        index.add(claim);
         if (announce) {
             Player owner = Bukkit.getPlayer(claim.getOwner());
             if (owner != null) {
@@ -214,10 +215,53 @@ public class ClaimManager {
         }
     }
 
+    private void persist(Supplier<CompletableFuture<?>> write) {
+        try {
+            write.get().whenComplete((ignored, error) -> {
+                if (error != null) {
+                    plugin.getLogger().severe("Failed to save claim change: " + error.getMessage());
+                }
+            });
+        } catch (MintLedger.LedgerException e) {
+            plugin.getLogger().severe("Failed to save claim change: " + e.getMessage());
+        }
+    }
+
+    // A partial import is repeated on the next start; the upsert makes that harmless.
+    private void importLegacyClaims() {
+        File dataFolder = plugin.getDataFolder();
+        if (!LegacyClaimFiles.exist(dataFolder)) {
+            return;
+        }
+        try {
+            List<ClaimStore.StoredClaim> batch = new ArrayList<>(IMPORT_BATCH);
+            int[] imported = new int[1];
+            LegacyClaimFiles.read(dataFolder, plugin.getLogger(), entry -> {
+                if (entry instanceof Map<?, ?> map) {
+                    Claim claim = readClaim((Map<String, Object>) map);
+                    if (claim != null) {
+                        batch.add(toStored(claim));
+                    }
+                }
+                if (batch.size() == IMPORT_BATCH) {
+                    store.importAll(List.copyOf(batch));
+                    imported[0] += batch.size();
+                    batch.clear();
+                }
+            });
+            store.importAll(batch);
+            imported[0] += batch.size();
+            LegacyClaimFiles.retire(dataFolder);
+            plugin.getLogger().info("Imported " + imported[0] + " claims from " + LegacyClaimFiles.SNAPSHOT + " into the ledger.");
+        } catch (IOException | MintLedger.LedgerException e) {
+            plugin.getLogger().severe("Failed to import claims from " + LegacyClaimFiles.SNAPSHOT + ": " + e.getMessage());
+        }
+    }
+
     private int countIronLayers(Block beaconBlock) {
         World world = beaconBlock.getWorld();
         int layers = 0;
-        for (int level = 1; level <= 4; level++) {
+        for (int level = 1; level <= MAX_IRON_LAYERS; level++) {
             int y = beaconBlock.getY() - level;
             if (y < world.getMinHeight()) {
                 break;
@@ -242,35 +286,6 @@ public class ClaimManager {
         return layers;
     }
 
-    private void removeFromChunkIndex(Claim claim) {
-        for (ChunkPosition chunkPosition : computeIndexedChunks(claim)) {
-            Set<Claim> set = claimsByChunk.get(chunkPosition);
-            if (set != null) {
-                set.remove(claim);
-                if (set.isEmpty()) {
-                    claimsByChunk.remove(chunkPosition);
-                }
-            }
-        }
-    }
-
-    private Set<ChunkPosition> computeIndexedChunks(Claim claim) {
-        Set<ChunkPosition> positions = new HashSet<>();
-        double radius = claim.getRadius();
-        double centerX = claim.getBeacon().getX() + 0.5D;
-        double centerZ = claim.getBeacon().getZ() + 0.5D;
-        int minChunkX = (int) Math.floor((centerX - radius) / 16.0D);
-        int maxChunkX = (int) Math.floor((centerX + radius) / 16.0D);
-        int minChunkZ = (int) Math.floor((centerZ - radius) / 16.0D);
-        int maxChunkZ = (int) Math.floor((centerZ + radius) / 16.0D);
-        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
-            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
-                positions.add(new ChunkPosition(chunkX, chunkZ));
-            }
-        }
-        return positions;
-    }
-
     private String buildBeaconKey(String world, int x, int y, int z) {
         return world + ":" + x + ":" + y + ":" + z;
     }
@@ -348,26 +363,26 @@ public class ClaimManager {
         }
     }
 
-    private Map<String, Object> writeClaim(Claim claim) {
-        Map<String, Object> data = new LinkedHashMap<>();
-        data.put("owner", claim.getOwner().toString());
-        data.put("world", claim.getWorld());
-        Map<String, Object> beacon = new LinkedHashMap<>();
-        beacon.put("x", claim.getBeacon().getX());
-        beacon.put("y", claim.getBeacon().getY());
-        beacon.put("z", claim.getBeacon().getZ());
-        data.put("beacon", beacon);
-        data.put("radius", claim.getRadius());
-        List<Map<String, Object>> chunks = new ArrayList<>();
+    private ClaimStore.StoredClaim toStored(Claim claim) {
+        Set<ClaimStore.Chunk> chunks = new HashSet<>();
         for (ChunkPosition chunkPosition : claim.getChunks()) {
-            Map<String, Object> chunk = new LinkedHashMap<>();
-            chunk.put("x", chunkPosition.getX());
-            chunk.put("z", chunkPosition.getZ());
-            chunks.add(chunk);
-        }
-        data.put("chunks", chunks);
-        List<String> trusted = claim.getTrusted().stream().map(UUID::toString).collect(Collectors.toList());
-        data.put("trusted", trusted);
-        return data;
+            chunks.add(new ClaimStore.Chunk(chunkPosition.getX(), chunkPosition.getZ()));
+        }
+        BlockPosition beacon = claim.getBeacon();
+        return new ClaimStore.StoredClaim(claim.getWorld(), beacon.getX(), beacon.getY(), beacon.getZ(), claim.getOwner(),
+                claim.getRadius(), chunks, new HashSet<>(claim.getTrusted()));
+    }
+
+    private Claim fromStored(ClaimStore.StoredClaim stored) {
+        Set<ChunkPosition> chunks = new HashSet<>();
+        for (ClaimStore.Chunk chunk : stored.chunks()) {
+            chunks.add(new ChunkPosition(chunk.x(), chunk.z()));
+        }
+        Claim claim = new Claim(stored.owner(), stored.world(), new BlockPosition(stored.x(), stored.y(), stored.z()), chunks);
+        claim.getTrusted().addAll(stored.trusted());
+        if (stored.radius() > 0) {
+            claim.setRadius(stored.radius());
+        }
+        return claim;
     }
 }
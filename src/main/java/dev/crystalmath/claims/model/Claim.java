@@ -75,10 +75,15 @@ public class Claim {
         if (!Objects.equals(location.getWorld().getName(), world)) {
             return false;
         }
+        return contains(location.getX(), location.getY(), location.getZ());
+    }
+
+    // Ignores the world.
+    public boolean contains(double x, double y, double z) {
         double radiusSquared = getRadius() * getRadius();
-        double dx = location.getX() - (beacon.getX() + 0.5);
-        double dy = location.getY() - (beacon.getY() + 0.5);
-        double dz = location.getZ() - (beacon.getZ() + 0.5);
+        double dx = x - (beacon.getX() + 0.5);
+        double dy = y - (beacon.getY() + 0.5);
+        double dz = z - (beacon.getZ() + 0.5);
         return (dx * dx + dy * dy + dz * dz) <= radiusSquared;
     }
 
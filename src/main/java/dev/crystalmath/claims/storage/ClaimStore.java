@@ -0,0 +1,266 @@
+package dev.crystalmath.claims.storage;
+
+import dev.crystalmath.amethyst.MintLedger;
+import dev.crystalmath.amethyst.ledger.LedgerCodec;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Beacon claims stored in the ledger's claims, claim_chunks and claim_trusted tables.
+ */
+public final class ClaimStore {
+    private final MintLedger ledger;
+
+    public ClaimStore(MintLedger ledger) {
+        this.ledger = ledger;
+    }
+
+    public record Chunk(int x, int z) {
+    }
+
+    public record StoredClaim(String world, int x, int y, int z, UUID owner, double radius, Set<Chunk> chunks,
+                              Set<UUID> trusted) {
+    }
+
+    /**
+     * Every stored claim, once the claim changes queued before the call have committed.
+     */
+    public List<StoredClaim> loadAll() {
+        // The writer runs tasks in order, so an empty one commits after every queued change.
+        ledger.write("Unable to wait for queued claim changes", connection -> null);
+        int fetchSize = ledger.settings().scanFetchSize();
+        return ledger.read("Unable to load claims", connection -> loadAll(connection, fetchSize));
+    }
+
+    public void importAll(List<StoredClaim> claims) {
+        ledger.write("Unable to import claims", connection -> {
+            List<Integer> worlds = new ArrayList<>(claims.size());
+            for (StoredClaim claim : claims) {
+                worlds.add(ledger.worldId(claim.world()));
+            }
+            upsert(connection, worlds, claims);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> saveAsync(StoredClaim claim) {
+        return ledger.writeAsync("Unable to save claim", connection -> {
+            upsert(connection, List.of(ledger.worldId(claim.world())), List.of(claim));
+            return null;
+        });
+    }
+
+    public CompletableFuture<Boolean> deleteAsync(String world, int x, int y, int z) {
+        return ledger.writeAsync("Unable to delete claim",
+                connection -> delete(connection, ledger.worldId(world), x, y, z));
+    }
+
+    public CompletableFuture<Boolean> trustAsync(String world, int x, int y, int z, UUID player) {
+        return ledger.writeAsync("Unable to trust player on claim",
+                connection -> trust(connection, ledger.worldId(world), x, y, z, player));
+    }
+
+    public CompletableFuture<Boolean> untrustAsync(String world, int x, int y, int z, UUID player) {
+        return ledger.writeAsync("Unable to untrust player on claim",
+                connection -> untrust(connection, ledger.worldId(world), x, y, z, player));
+    }
+
+    // worlds holds the dictionary world id of each claim, in order.
+    private static void upsert(Connection connection, List<Integer> worlds, List<StoredClaim> claims) throws SQLException {
+        try (PreparedStatement claimRow = connection.prepareStatement("""
+                INSERT INTO claims (world, x, y, z, owner, radius)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (world, x, y, z) DO UPDATE
+                SET owner = excluded.owner, radius = excluded.radius
+                """);
+             PreparedStatement id = connection.prepareStatement("""
+                     SELECT id FROM claims WHERE world = ? AND x = ? AND y = ? AND z = ?
+                     """);
+             PreparedStatement deleteChunks = connection.prepareStatement("DELETE FROM claim_chunks WHERE claim_id = ?");
+             PreparedStatement deleteTrusted = connection.prepareStatement("DELETE FROM claim_trusted WHERE claim_id = ?");
+             PreparedStatement chunkRow = connection.prepareStatement("""
+                     INSERT INTO claim_chunks (world, chunk_x, chunk_z, claim_id)
+                     VALUES (?, ?, ?, ?)
+                     """);
+             PreparedStatement trustedRow = connection.prepareStatement("""
+                     INSERT INTO claim_trusted (claim_id, player)
+                     VALUES (?, ?)
+                     """)) {
+            for (int i = 0; i < claims.size(); i++) {
+                StoredClaim claim = claims.get(i);
+                int world = worlds.get(i);
+                claimRow.setInt(1, world);
+                claimRow.setInt(2, claim.x());
+                claimRow.setInt(3, claim.y());
+                claimRow.setInt(4, claim.z());
+                claimRow.setBytes(5, LedgerCodec.toBytes(claim.owner()));
+                claimRow.setDouble(6, claim.radius());
+                claimRow.executeUpdate();
+
+                bindPosition(id, 1, world, claim.x(), claim.y(), claim.z());
+                long claimId;
+                try (ResultSet resultSet = id.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("Unable to find claim at " + claim.x() + ", " + claim.y() + ", " + claim.z());
+                    }
+                    claimId = resultSet.getLong(1);
+                }
+
+                deleteChunks.setLong(1, claimId);
+                deleteChunks.executeUpdate();
+                deleteTrusted.setLong(1, claimId);
+                deleteTrusted.executeUpdate();
+
+                for (Chunk chunk : claim.chunks()) {
+                    chunkRow.setInt(1, world);
+                    chunkRow.setInt(2, chunk.x());
+                    chunkRow.setInt(3, chunk.z());
+                    chunkRow.setLong(4, claimId);
+                    chunkRow.addBatch();
+                }
+                for (UUID player : claim.trusted()) {
+                    trustedRow.setLong(1, claimId);
+                    trustedRow.setBytes(2, LedgerCodec.toBytes(player));
+                    trustedRow.addBatch();
+                }
+                // Before the next claim, which may be this beacon again and delete these rows first.
+                chunkRow.executeBatch();
+                trustedRow.executeBatch();
+            }
+        }
+    }
+
+    private static boolean delete(Connection connection, int world, int x, int y, int z) throws SQLException {
+        long id = findId(connection, world, x, y, z);
+        if (id < 0L) {
+            return false;
+        }
+        deleteChildren(connection, id);
+        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM claims WHERE id = ?")) {
+            statement.setLong(1, id);
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    private static boolean trust(Connection connection, int world, int x, int y, int z, UUID player) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT OR IGNORE INTO claim_trusted (claim_id, player)
+                SELECT id, ?
+                FROM claims
+                WHERE world = ? AND x = ? AND y = ? AND z = ?
+                """)) {
+            statement.setBytes(1, LedgerCodec.toBytes(player));
+            bindPosition(statement, 2, world, x, y, z);
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    private static boolean untrust(Connection connection, int world, int x, int y, int z, UUID player) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                DELETE FROM claim_trusted
+                WHERE player = ?
+                  AND claim_id = (SELECT id FROM claims WHERE world = ? AND x = ? AND y = ? AND z = ?)
+                """)) {
+            statement.setBytes(1, LedgerCodec.toBytes(player));
+            bindPosition(statement, 2, world, x, y, z);
+            return statement.executeUpdate() > 0;
+        }
+    }
+
+    private List<StoredClaim> loadAll(Connection connection, int fetchSize) throws SQLException {
+        Map<Long, StoredClaim> claims = new HashMap<>();
+        List<StoredClaim> ordered = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT id, world, x, y, z, owner, radius
+                FROM claims
+                ORDER BY id
+                """)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String world = ledger.worldName(resultSet.getInt(2));
+                    if (world == null) {
+                        continue;
+                    }
+                    StoredClaim claim = new StoredClaim(world, resultSet.getInt(3), resultSet.getInt(4),
+                            resultSet.getInt(5), LedgerCodec.fromBytes(resultSet.getBytes(6)), resultSet.getDouble(7),
+                            new HashSet<>(), new HashSet<>());
+                    claims.put(resultSet.getLong(1), claim);
+                    ordered.add(claim);
+                }
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT claim_id, chunk_x, chunk_z
+                FROM claim_chunks
+                """)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    StoredClaim claim = claims.get(resultSet.getLong(1));
+                    if (claim != null) {
+                        claim.chunks().add(new Chunk(resultSet.getInt(2), resultSet.getInt(3)));
+                    }
+                }
+            }
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT claim_id, player
+                FROM claim_trusted
+                """)) {
+            statement.setFetchSize(fetchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    StoredClaim claim = claims.get(resultSet.getLong(1));
+                    if (claim != null) {
+                        claim.trusted().add(LedgerCodec.fromBytes(resultSet.getBytes(2)));
+                    }
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private static long findId(Connection connection, int world, int x, int y, int z) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT id FROM claims WHERE world = ? AND x = ? AND y = ? AND z = ?
+                """)) {
+            bindPosition(statement, 1, world, x, y, z);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : -1L;
+            }
+        }
+    }
+
+    // Foreign keys are not enforced on ledger connections.
+    private static void deleteChildren(Connection connection, long id) throws SQLException {
+        try (PreparedStatement chunks = connection.prepareStatement("DELETE FROM claim_chunks WHERE claim_id = ?");
+             PreparedStatement trusted = connection.prepareStatement("DELETE FROM claim_trusted WHERE claim_id = ?")) {
+            chunks.setLong(1, id);
+            chunks.executeUpdate();
+            trusted.setLong(1, id);
+            trusted.executeUpdate();
+        }
+    }
+
+    private static void bindPosition(PreparedStatement statement, int first, int world, int x, int y, int z)
+            throws SQLException {
+        statement.setInt(first, world);
+        statement.setInt(first + 1, x);
+        statement.setInt(first + 2, y);
+        statement.setInt(first + 3, z);
+    }
+}
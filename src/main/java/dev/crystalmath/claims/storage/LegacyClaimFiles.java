@@ -0,0 +1,109 @@
+package dev.crystalmath.claims.storage;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Reads the claims.json snapshot and claims.journal that held claims before the ledger.
+ */
+public final class LegacyClaimFiles {
+    public static final String SNAPSHOT = "claims.json";
+    public static final String JOURNAL = "claims.journal";
+    private static final String IMPORTED_SUFFIX = ".imported";
+    private static final Object REMOVED = new Object();
+
+    private LegacyClaimFiles() {
+    }
+
+    public static boolean exist(File dataFolder) {
+        return new File(dataFolder, SNAPSHOT).exists() || new File(dataFolder, JOURNAL).exists();
+    }
+
+    /**
+     * Streams each stored claim to {@code handler}; claims the journal changed come last, in their final state.
+     */
+    public static void read(File dataFolder, Logger logger, SimpleJson.ElementHandler handler) throws IOException {
+        Map<String, Object> changed = readJournal(new File(dataFolder, JOURNAL), logger);
+
+        File snapshot = new File(dataFolder, SNAPSHOT);
+        if (snapshot.exists()) {
+            try (Reader reader = Files.newBufferedReader(snapshot.toPath(), StandardCharsets.UTF_8)) {
+                SimpleJson.forEachElement(reader, claim -> {
+                    String key = keyOf(claim);
+                    if (key != null && !changed.containsKey(key)) {
+                        handler.accept(claim);
+                    }
+                });
+            }
+        }
+
+        for (Object claim : changed.values()) {
+            if (claim != REMOVED) {
+                handler.accept(claim);
+            }
+        }
+    }
+
+    // The last journal entry per key: the claim, or REMOVED.
+    private static Map<String, Object> readJournal(File journal, Logger logger) throws IOException {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        if (!journal.exists()) {
+            return changed;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(journal.toPath(), StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            String line = reader.readLine();
+            while (line != null) {
+                lineNumber++;
+                String next = reader.readLine();
+                if (!line.isBlank()) {
+                    try {
+                        if (SimpleJson.parse(line) instanceof Map<?, ?> entry && entry.get("key") instanceof String key) {
+                            if ("remove".equals(entry.get("op"))) {
+                                changed.put(key, REMOVED);
+                            } else if (entry.get("claim") != null) {
+                                changed.put(key, entry.get("claim"));
+                            }
+                        }
+                    } catch (IOException | RuntimeException exception) {
+                        if (next != null) {
+                            throw new IOException("Unreadable claim journal line " + lineNumber, exception);
+                        }
+                        logger.warning("Skipping incomplete last line of " + JOURNAL);
+                    }
+                }
+                line = next;
+            }
+        }
+        return changed;
+    }
+
+    public static void retire(File dataFolder) throws IOException {
+        for (String name : List.of(SNAPSHOT, JOURNAL)) {
+            File file = new File(dataFolder, name);
+            if (file.exists()) {
+                Files.move(file.toPath(), new File(dataFolder, name + IMPORTED_SUFFIX).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    // Same form as Claim#getBeaconKey, so journal entries land on the snapshot's claims.
+    private static String keyOf(Object claim) {
+        if (!(claim instanceof Map<?, ?> map) || !(map.get("world") instanceof String world)
+                || !(map.get("beacon") instanceof Map<?, ?> beacon) || !(beacon.get("x") instanceof Number x)
+                || !(beacon.get("y") instanceof Number y) || !(beacon.get("z") instanceof Number z)) {
+            return null;
+        }
+        return world + ":" + x.intValue() + ":" + y.intValue() + ":" + z.intValue();
+    }
+}
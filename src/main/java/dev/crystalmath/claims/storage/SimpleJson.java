@@ -1,111 +1,76 @@
 package dev.crystalmath.claims.storage;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Minimal streaming JSON reader for the legacy claim files.
+ */
 public final class SimpleJson {
     private SimpleJson() {
     }
 
+    @FunctionalInterface
+    public interface ElementHandler {
+        void accept(Object element) throws IOException;
+    }
+
     public static Object parse(String json) throws IOException {
         if (json == null) {
             return null;
         }
-        Parser parser = new Parser(json);
-        Object value = parser.parseValue();
-        parser.skipWhitespace();
-        if (!parser.isEnd()) {
-            throw new IOException("Trailing data in JSON");
-        }
-        return value;
+        return parse(new StringReader(json));
     }
 
-    public static String stringify(Object value) {
-        StringBuilder builder = new StringBuilder();
-        appendValue(builder, value);
-        return builder.toString();
+    public static Object parse(Reader reader) throws IOException {
+        Parser parser = new Parser(reader);
+        Object value = parser.parseValue();
+        parser.expectEnd();
+        return value;
     }
 
-    private static void appendValue(StringBuilder builder, Object value) {
-        if (value == null) {
-            builder.append("null");
-        } else if (value instanceof String string) {
-            appendString(builder, string);
-        } else if (value instanceof Number || value instanceof Boolean) {
-            builder.append(value.toString());
-        } else if (value instanceof Map<?, ?> map) {
-            builder.append('{');
-            boolean first = true;
-            for (Map.Entry<?, ?> entry : map.entrySet()) {
-                if (!first) {
-                    builder.append(',');
-                }
-                first = false;
-                appendString(builder, entry.getKey().toString());
-                builder.append(':');
-                appendValue(builder, entry.getValue());
-            }
-            builder.append('}');
-        } else if (value instanceof Iterable<?> iterable) {
-            builder.append('[');
-            boolean first = true;
-            for (Object element : iterable) {
-                if (!first) {
-                    builder.append(',');
-                }
-                first = false;
-                appendValue(builder, element);
-            }
-            builder.append(']');
+    /**
+     * Passes each element of a top-level array to {@code handler} as soon as it is parsed.
+     */
+    public static void forEachElement(Reader reader, ElementHandler handler) throws IOException {
+        Parser parser = new Parser(reader);
+        parser.skipWhitespace();
+        parser.expect('[');
+        parser.skipWhitespace();
+        if (parser.peek(']')) {
+            parser.expect(']');
         } else {
-            appendString(builder, value.toString());
-        }
-    }
-
-    private static void appendString(StringBuilder builder, String value) {
-        builder.append('"');
-        for (int i = 0; i < value.length(); i++) {
-            char c = value.charAt(i);
-            switch (c) {
-                case '"':
-                case '\\':
-                    builder.append('\\').append(c);
-                    break;
-                case '\b':
-                    builder.append("\\b");
-                    break;
-                case '\f':
-                    builder.append("\\f");
-                    break;
-                case '\n':
-                    builder.append("\\n");
-                    break;
-                case '\r':
-                    builder.append("\\r");
-                    break;
-                case '\t':
-                    builder.append("\\t");
+            while (true) {
+                handler.accept(parser.parseValue());
+                parser.skipWhitespace();
+                if (parser.peek(']')) {
+                    parser.expect(']');
                     break;
-                default:
-                    if (c < 0x20) {
-                        builder.append(String.format("\\u%04x", (int) c));
-                    } else {
-                        builder.append(c);
-                    }
+                }
+                parser.expect(',');
             }
         }
-        builder.append('"');
+        parser.expectEnd();
     }
 
     private static final class Parser {
-        private final String json;
+        private static final int BUFFER_SIZE = 8192;
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        // Reused for strings and numbers, which never nest.
+        private final StringBuilder scratch = new StringBuilder();
         private int index;
+        private int limit;
+        private long consumed;
 
-        private Parser(String json) {
-            this.json = json;
+        private Parser(Reader reader) {
+            this.reader = reader;
         }
 
         private Object parseValue() throws IOException {
@@ -113,7 +78,7 @@ public final class SimpleJson {
             if (isEnd()) {
                 return null;
             }
-            char c = json.charAt(index);
+            char c = buffer[index];
             return switch (c) {
                 case '"' -> parseString();
                 case '{' -> parseObject();
@@ -173,72 +138,65 @@ public final class SimpleJson {
 
         private String parseString() throws IOException {
             expect('"');
-            StringBuilder builder = new StringBuilder();
+            scratch.setLength(0);
             while (!isEnd()) {
-                char c = json.charAt(index++);
+                char c = buffer[index++];
                 if (c == '"') {
-                    return builder.toString();
+                    return scratch.toString();
                 }
                 if (c == '\\') {
                     if (isEnd()) {
                         throw new IOException("Unterminated escape sequence");
                     }
-                    char esc = json.charAt(index++);
+                    char esc = buffer[index++];
                     switch (esc) {
-                        case '"', '\\', '/' -> builder.append(esc);
-                        case 'b' -> builder.append('\b');
-                        case 'f' -> builder.append('\f');
-                        case 'n' -> builder.append('\n');
-                        case 'r' -> builder.append('\r');
-                        case 't' -> builder.append('\t');
-                        case 'u' -> {
-                            if (index + 4 > json.length()) {
-                                throw new IOException("Invalid unicode escape");
-                            }
-                            String hex = json.substring(index, index + 4);
-                            index += 4;
-                            try {
-                                int code = Integer.parseInt(hex, 16);
-                                builder.append((char) code);
-                            } catch (NumberFormatException ex) {
-                                throw new IOException("Invalid unicode escape", ex);
-                            }
-                        }
+                        case '"', '\\', '/' -> scratch.append(esc);
+                        case 'b' -> scratch.append('\b');
+                        case 'f' -> scratch.append('\f');
+                        case 'n' -> scratch.append('\n');
+                        case 'r' -> scratch.append('\r');
+                        case 't' -> scratch.append('\t');
+                        case 'u' -> scratch.append(parseUnicodeEscape());
                         default -> throw new IOException("Invalid escape character: " + esc);
                     }
                 } else {
-                    builder.append(c);
+                    scratch.append(c);
                 }
             }
             throw new IOException("Unterminated string");
         }
 
-        private Object parseNumber() throws IOException {
-            int start = index;
-            if (json.charAt(index) == '-') {
-                index++;
-            }
-            while (!isEnd() && Character.isDigit(json.charAt(index))) {
-                index++;
-            }
-            if (!isEnd() && json.charAt(index) == '.') {
-                index++;
-                while (!isEnd() && Character.isDigit(json.charAt(index))) {
-                    index++;
+        private char parseUnicodeEscape() throws IOException {
+            int code = 0;
+            for (int i = 0; i < 4; i++) {
+                if (isEnd()) {
+                    throw new IOException("Invalid unicode escape");
                 }
-            }
-            if (!isEnd() && (json.charAt(index) == 'e' || json.charAt(index) == 'E')) {
-                index++;
-                if (!isEnd() && (json.charAt(index) == '+' || json.charAt(index) == '-')) {
-                    index++;
+                int digit = Character.digit(buffer[index++], 16);
+                if (digit < 0) {
+                    throw new IOException("Invalid unicode escape");
                 }
-                while (!isEnd() && Character.isDigit(json.charAt(index))) {
-                    index++;
+                code = code << 4 | digit;
+            }
+            return (char) code;
+        }
+
+        private Object parseNumber() throws IOException {
+            scratch.setLength(0);
+            boolean decimal = false;
+            while (!isEnd()) {
+                char c = buffer[index];
+                if (c == '.' || c == 'e' || c == 'E') {
+                    decimal = true;
+                } else if (!Character.isDigit(c) && c != '-' && c != '+') {
+                    break;
                 }
+                scratch.append(c);
+                index++;
             }
-            String number = json.substring(start, index);
+            String number = scratch.toString();
             try {
-                if (number.contains(".") || number.contains("e") || number.contains("E")) {
+                if (decimal) {
                     return Double.parseDouble(number);
                 }
                 long longValue = Long.parseLong(number);
@@ -252,32 +210,61 @@ public final class SimpleJson {
         }
 
         private Object parseLiteral(String literal, Object value) throws IOException {
-            if (json.regionMatches(index, literal, 0, literal.length())) {
-                index += literal.length();
-                return value;
+            long start = position();
+            for (int i = 0; i < literal.length(); i++) {
+                if (isEnd() || buffer[index] != literal.charAt(i)) {
+                    throw new IOException("Unexpected token at position " + start);
+                }
+                index++;
             }
-            throw new IOException("Unexpected token at position " + index);
+            return value;
         }
 
-        private void skipWhitespace() {
-            while (!isEnd() && Character.isWhitespace(json.charAt(index))) {
+        private void skipWhitespace() throws IOException {
+            while (!isEnd() && Character.isWhitespace(buffer[index])) {
                 index++;
             }
         }
 
         private void expect(char expected) throws IOException {
-            if (isEnd() || json.charAt(index) != expected) {
-                throw new IOException("Expected '" + expected + "' at position " + index);
+            if (isEnd() || buffer[index] != expected) {
+                throw new IOException("Expected '" + expected + "' at position " + position());
             }
             index++;
         }
 
-        private boolean peek(char value) {
-            return !isEnd() && json.charAt(index) == value;
+        private void expectEnd() throws IOException {
+            skipWhitespace();
+            if (!isEnd()) {
+                throw new IOException("Trailing data in JSON");
+            }
+        }
+
+        private boolean peek(char value) throws IOException {
+            return !isEnd() && buffer[index] == value;
+        }
+
+        // Refills the buffer once it is used up; true when the input is exhausted.
+        private boolean isEnd() throws IOException {
+            if (index < limit) {
+                return false;
+            }
+            consumed += limit;
+            index = 0;
+            limit = 0;
+            int read;
+            while ((read = reader.read(buffer)) == 0) {
+                // A reader may return 0 for a non-empty buffer; keep asking.
+            }
+            if (read < 0) {
+                return true;
+            }
+            limit = read;
+            return false;
         }
 
-        private boolean isEnd() {
-            return index >= json.length();
+        private long position() {
+            return consumed + index;
         }
     }
 }